@@ -2,7 +2,8 @@ import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.LinkedList;
-import java.util.Random;
+import java.util.List;
+import java.util.SplittableRandom;
 
 public class AntAlgo {
     // Algorithm parameters
@@ -21,16 +22,47 @@ public class AntAlgo {
     // probability of pure random selection of the next town
     private double pr = 0.01;
 
+    // Instrumented phases of an iteration, see SolverMetrics
+    private static final int CONSTRUCTION = 0, TRAIL_UPDATE = 1, BEST_UPDATE = 2;
+    private final SolverMetrics metrics = SolverMetrics.ENABLED
+            ? SolverMetrics.forSolver("ACO", "construction", "trailUpdate", "bestUpdate") : null;
+
     // Reasonable number of iterations
     // - results typically settle down by 500
     private int maxIterations = 2000;
 
+    public AntAlgo() {
+    }
+
+    // Take the parameters from a configuration instead of the
+    // defaults above. Must happen before the graph is read, as
+    // the number of ants depends on numAntFactor.
+    public AntAlgo(SolverConfig config) {
+        alpha = config.getAlpha();
+        beta = config.getBeta();
+        evaporation = config.getEvaporation();
+        Q = config.getQ();
+        numAntFactor = config.getNumAntFactor();
+        pr = config.getRandomSelectionProbability();
+    }
+
     public int n = 0; // # towns
     public int m = 0; // # ants
     private double graph[][] = null;
+    // true while graph is the caller's array from setGraph; edge
+    // updates then copy it first.
+    private boolean sharedGraph = false;
     private double trails[][] = null;
+    // graph row by row, for the tour length kernel
+    private double flatGraph[] = null;
+    // pow(1 / distance, beta), fixed while the graph is
+    private double heuristic[][] = null;
+    // pow(trail, alpha) * heuristic, refreshed once per trail
+    // update instead of for every ant and step
+    private double choiceInfo[][] = null;
+    private final TourKernels kernels = TourKernels.get();
     private Ant ants[] = null;
-    private Random rand = new Random();
+    private SplittableRandom rand = RandomProvider.global().newStream();
     private double probs[] = null;
 
     private int currentIndex = 0;
@@ -38,6 +70,22 @@ public class AntAlgo {
     public int[] bestTour;
     public double bestTourLength;
 
+    // Copy of the best tour, replaced (never modified) on improvement
+    // so that other threads can poll it while solve() is running.
+    private volatile TourSnapshot bestSoFar;
+
+    // Set by another thread to stop solve() after the current
+    // iteration. Stays set until reset(), so later calls return
+    // immediately, also when the cancel came before they started.
+    private volatile boolean cancelled = false;
+
+    // Optional lower bound: reports the gap and lets the criteria
+    // stop once the best tour is close enough to it.
+    private HeldKarpBound lowerBound = null;
+
+    // Print the best tour at the end of every solve()
+    private boolean verbose = true;
+
     // Ant class. Maintains tour and tabu information.
     private class Ant {
         public int tour[] = new int[graph.length];
@@ -55,11 +103,7 @@ public class AntAlgo {
         }
 
         public double tourLength() {
-            double length = graph[tour[n - 1]][tour[0]];
-            for (int i = 0; i < n - 1; i++) {
-                length += graph[tour[i]][tour[i + 1]];
-            }
-            return length;
+            return kernels.tourLength(flatGraph, n, tour);
         }
 
         public void clear() {
@@ -97,16 +141,35 @@ public class AntAlgo {
         i++;
     }
 
-    n = graph.length;
-    m = (int) (n * numAntFactor);
+    allocate();
+}
+
+    // Use an already parsed graph, e.g. one shared between several
+    // colonies. The graph is never modified, edge updates are
+    // applied to a copy.
+    public void setGraph(double[][] graph) {
+        this.graph = graph;
+        this.sharedGraph = true;
+        allocate();
+    }
 
     // all memory allocations done here
-    trails = new double[n][n];
-    probs = new double[n];
-    ants = new Ant[m];
-    for (int j = 0; j < m; j++)
-        ants[j] = new Ant();
-}
+    private void allocate() {
+        n = graph.length;
+        m = (int) (n * numAntFactor);
+
+        trails = new double[n][n];
+        flatGraph = new double[n * n];
+        heuristic = new double[n][n];
+        choiceInfo = new double[n][n];
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                setDistance(i, j, graph[i][j]);
+        probs = new double[n];
+        ants = new Ant[m];
+        for (int j = 0; j < m; j++)
+            ants[j] = new Ant();
+    }
 
     // - >25 times faster
     // - Extreme cases can lead to error of 25% - but usually less.
@@ -126,17 +189,14 @@ public class AntAlgo {
         double denom = 0.0;
         for (int l = 0; l < n; l++)
             if (!ant.visited(l))
-                denom += pow(trails[i][l], alpha)
-                        * pow(1.0 / graph[i][l], beta);
+                denom += choiceInfo[i][l];
 
 
         for (int j = 0; j < n; j++) {
             if (ant.visited(j)) {
                 probs[j] = 0.0;
             } else {
-                double numerator = pow(trails[i][j], alpha)
-                        * pow(1.0 / graph[i][j], beta);
-                probs[j] = numerator / denom;
+                probs[j] = choiceInfo[i][j] / denom;
             }
         }
 
@@ -163,11 +223,18 @@ public class AntAlgo {
         // randomly select according to probs
         double r = rand.nextDouble();
         double tot = 0;
+        int lastUnvisited = -1;
         for (int i = 0; i < n; i++) {
             tot += probs[i];
             if (tot >= r)
                 return i;
+            if (!ant.visited(i))
+                lastUnvisited = i;
         }
+        // rounding in pow() can leave the probabilities summing to
+        // slightly less than r; fall back to an unvisited town
+        if (lastUnvisited >= 0)
+            return lastUnvisited;
 
         throw new RuntimeException("Not supposed to get here.");
     }
@@ -176,8 +243,7 @@ public class AntAlgo {
     private void updateTrails() {
         // evaporation
         for (int i = 0; i < n; i++)
-            for (int j = 0; j < n; j++)
-                trails[i][j] *= evaporation;
+            kernels.scale(trails[i], evaporation);
 
         // each ants contribution
         for (Ant a : ants) {
@@ -187,6 +253,26 @@ public class AntAlgo {
             }
             trails[a.tour[n - 1]][a.tour[0]] += contribution;
         }
+        updateChoiceInfo();
+    }
+
+    // Combine trails and heuristic for probTo; with the usual
+    // alpha of 1 this is a plain (vectorised) product.
+    private void updateChoiceInfo() {
+        for (int i = 0; i < n; i++) {
+            if (alpha == 1.0) {
+                kernels.multiply(trails[i], heuristic[i], choiceInfo[i]);
+            } else {
+                for (int j = 0; j < n; j++)
+                    choiceInfo[i][j] = pow(trails[i][j], alpha) * heuristic[i][j];
+            }
+        }
+    }
+
+    // Keep the copies derived from graph[i][j] in step with it
+    private void setDistance(int i, int j, double distance) {
+        flatGraph[i * n + j] = distance;
+        heuristic[i][j] = pow(1.0 / distance, beta);
     }
 
     // Choose the next town for all ants
@@ -210,17 +296,65 @@ public class AntAlgo {
 
     }
 
-    private void updateBest() {
+    // Returns true if one of the ants improved on the best tour.
+    private boolean updateBest() {
+        boolean improved = false;
         if (bestTour == null) {
-            bestTour = ants[0].tour;
+            bestTour = ants[0].tour.clone();
             bestTourLength = ants[0].tourLength();
+            improved = true;
         }
         for (Ant a : ants) {
             if (a.tourLength() < bestTourLength) {
                 bestTourLength = a.tourLength();
                 bestTour = a.tour.clone();
+                improved = true;
             }
         }
+        return improved;
+    }
+
+    // Use the given random stream, e.g. one from a seeded
+    // RandomProvider to reproduce a run.
+    public void setRandom(SplittableRandom rand) {
+        this.rand = rand;
+    }
+
+    public void setLowerBound(HeldKarpBound lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+
+    // Relative gap between the best tour and the lower bound,
+    // infinity if either is not known yet.
+    public double gap() {
+        TourSnapshot best = bestSoFar;
+        return best == null ? Double.POSITIVE_INFINITY
+                : HeldKarpBound.gap(best.getLength(), currentLowerBound());
+    }
+
+    private double currentLowerBound() {
+        return lowerBound == null ? 0 : lowerBound.getBound();
+    }
+
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    // Ask a running solve() to stop and return its best tour.
+    public void cancel() {
+        cancelled = true;
+    }
+
+    // Withdraw a cancel before the next solve() or reoptimize() is
+    // started; never from the solving thread itself.
+    public void reset() {
+        cancelled = false;
+    }
+
+    // Best tour found so far (towns numbered from 0), or null before
+    // the first iteration has completed. Safe to call from any thread.
+    public TourSnapshot bestSoFar() {
+        return bestSoFar;
     }
 
     public static String tourToString(int tour[]) {
@@ -231,25 +365,103 @@ public class AntAlgo {
     }
 
     public int[] solve() {
+        return solve(TerminationCriteria.iterations(maxIterations));
+    }
+
+    // Run until one of the termination criteria is met.
+    // The best tour is preserved across calls, so stagnation is
+    // counted against the best tour of any previous run as well.
+    // Returns null if cancelled before any tour was found.
+    public int[] solve(TerminationCriteria criteria) {
 
         // clear trails
         for (int i = 0; i < n; i++)
             for (int j = 0; j < n; j++)
                 trails[i][j] = c;
+        updateChoiceInfo();
 
+        return run(criteria);
+    }
+
+    // Warm start after distance changes: apply the updates to the
+    // graph, re-score the best tour and continue from the current
+    // trails instead of clearing them. Requires a previous solve().
+    public int[] reoptimize(List<EdgeUpdate> updates, TerminationCriteria criteria) {
+        if (bestTour == null)
+            throw new IllegalStateException("reoptimize needs a tour from a previous solve");
+        // check the whole batch first, an invalid update must not leave the graph half updated
+        EdgeUpdate.validate(updates, n);
+        if (sharedGraph) {
+            double copy[][] = new double[n][];
+            for (int i = 0; i < n; i++)
+                copy[i] = graph[i].clone();
+            graph = copy;
+            sharedGraph = false;
+        }
+        for (EdgeUpdate u : updates) {
+            graph[u.getFrom()][u.getTo()] = u.getWeight();
+            setDistance(u.getFrom(), u.getTo(), u.getWeight());
+        }
+        updateChoiceInfo();
+
+        // the old best length is stale; ants compare against the new one
+        bestTourLength = graph[bestTour[n - 1]][bestTour[0]];
+        for (int i = 0; i < n - 1; i++)
+            bestTourLength += graph[bestTour[i]][bestTour[i + 1]];
+        bestSoFar = new TourSnapshot(bestTour, bestTourLength, 0, 0);
+        // the bound was computed for the old distances
+        lowerBound = null;
+        return run(criteria);
+    }
+
+    private int[] run(TerminationCriteria criteria) {
+        long startNanos = System.nanoTime();
         int iteration = 0;
-        // run for maxIterations
+        int stagnantIterations = 0;
         // preserve best tour
-        while (iteration < maxIterations) {
+        while (!cancelled && !criteria.shouldStop(iteration, System.nanoTime() - startNanos, stagnantIterations,
+                bestTour == null ? Double.MAX_VALUE : bestTourLength, currentLowerBound())) {
+            // only read when SolverMetrics are enabled
+            long bytes = 0, t0 = 0, t1 = 0, t2 = 0;
+            if (SolverMetrics.ENABLED) {
+                bytes = SolverMetrics.allocatedBytes();
+                t0 = System.nanoTime();
+            }
             setupAnts();
             moveAnts();
+            if (SolverMetrics.ENABLED)
+                t1 = System.nanoTime();
             updateTrails();
-            updateBest();
+            if (SolverMetrics.ENABLED)
+                t2 = System.nanoTime();
             iteration++;
+            boolean improved = updateBest();
+            if (SolverMetrics.ENABLED) {
+                long t3 = System.nanoTime();
+                metrics.record(CONSTRUCTION, t1 - t0);
+                metrics.record(TRAIL_UPDATE, t2 - t1);
+                metrics.record(BEST_UPDATE, t3 - t2);
+                metrics.endGeneration(m, bytes < 0 ? -1 : SolverMetrics.allocatedBytes() - bytes);
+            }
+            if (improved) {
+                bestSoFar = new TourSnapshot(bestTour, bestTourLength, iteration, System.nanoTime() - startNanos);
+                if (lowerBound != null)
+                    lowerBound.offerUpperBound(bestTourLength);
+                stagnantIterations = 0;
+            } else {
+                stagnantIterations++;
+            }
         }
+        // cancelled before the first iteration: no tour yet
+        if (bestTour == null)
+            return null;
         // Subtract n because we added one to edges on load
-        System.out.println("Best tour length: " + (bestTourLength - n));
-        System.out.println("Best tour:" + tourToString(bestTour));
+        if (verbose) {
+            System.out.println("Best tour length: " + (bestTourLength - n));
+            System.out.println("Best tour:" + tourToString(bestTour));
+            if (currentLowerBound() > 0)
+                System.out.println("Lower bound: " + currentLowerBound() + ", gap: " + gap());
+        }
         return bestTour.clone();
     }
 
@@ -259,6 +471,8 @@ public class AntAlgo {
             System.err.println("Please specify a TSP data file.");
             return;
         }
+        // Repeat a run with -Dtsp.seed=<seed>
+        System.out.println("Random seed: " + RandomProvider.global().getMasterSeed());
         AntAlgo anttsp = new AntAlgo();
         try {
             anttsp.readGraph(args[0]);
@@ -268,6 +482,17 @@ public class AntAlgo {
         }
     
         // long startTime = System.currentTimeMillis();
+
+        // Optional second argument: wall-clock budget in milliseconds.
+        // The best tour within the budget is reported, instead of
+        // repeating fixed-length runs.
+        if (args.length > 1) {
+            HeldKarpBound bound = new HeldKarpBound(anttsp.graph, 10_000);
+            bound.startInBackground();
+            anttsp.setLowerBound(bound);
+            anttsp.solve(TerminationCriteria.timeLimit(Long.parseLong(args[1])));
+            return;
+        }
     
         // Set a maximum number of iterations
         int maxIterations = 100;
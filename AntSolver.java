@@ -0,0 +1,41 @@
+/**
+ * AntSolver adapts {@link AntAlgo} to the {@link Solver} interface.
+ * The ant colony already numbers towns from 0, so its tours are passed through unchanged.
+ */
+public class AntSolver implements Solver {
+    private final AntAlgo antAlgo;
+
+    /**
+     * @param antAlgo The ant colony, with its graph already read.
+     */
+    public AntSolver(AntAlgo antAlgo) {
+        this.antAlgo = antAlgo;
+        this.antAlgo.setVerbose(false);
+    }
+
+    @Override
+    public String name() {
+        return "ACO";
+    }
+
+    @Override
+    public SolverResult solve(TerminationCriteria criteria) {
+        antAlgo.solve(criteria);
+        return bestSoFar();
+    }
+
+    @Override
+    public SolverResult bestSoFar() {
+        return SolverResult.fromSnapshot(name(), antAlgo.bestSoFar(), 0, false);
+    }
+
+    @Override
+    public void cancel() {
+        antAlgo.cancel();
+    }
+
+    @Override
+    public void reset() {
+        antAlgo.reset();
+    }
+}
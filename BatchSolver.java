@@ -0,0 +1,345 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BatchSolver solves many instances concurrently in one JVM and streams the results as JSON lines.
+ * Reading instances, writing results and serving HTTP requests run on virtual threads (when the JVM supports them,
+ * otherwise on a cached thread pool); solving runs on a fixed pool with one thread per processor.
+ * Parsed matrices are shared through an {@link InstanceCache}, so repeated instances are only parsed once.
+ */
+public class BatchSolver implements AutoCloseable {
+    // Marks the end of a queue passed to consume()
+    public static final Path END_OF_QUEUE = Paths.get("");
+    // Instances this small are solved exactly, larger ones with the ant colony
+    private static final int MAX_EXACT_CITIES = 9;
+
+    private final InstanceCache cache;
+    private volatile ResultCache resultCache;
+    private final TerminationCriteria criteria;
+    private final ExecutorService ioExecutor;
+    private final ExecutorService cpuExecutor;
+    private final BufferedWriter output;
+    private final AtomicLong solvedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * @param output The JSONL file results are appended to.
+     * @param criteria The termination criteria used for every instance.
+     * @param threads The number of instances solved at the same time.
+     * @param cacheSize The number of parsed instances to keep.
+     * @throws IOException If the output file cannot be opened.
+     */
+    public BatchSolver(Path output, TerminationCriteria criteria, int threads, int cacheSize) throws IOException {
+        this.cache = new InstanceCache(cacheSize);
+        this.criteria = criteria;
+        this.ioExecutor = newIoExecutor();
+        this.cpuExecutor = Executors.newFixedThreadPool(threads);
+        this.output = Files.newBufferedWriter(output, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Virtual threads are only available from Java 21; they are looked up reflectively so the code
+     * still compiles and runs, on a cached thread pool, with older JDKs.
+     */
+    static ExecutorService newIoExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Answers small instances from the cache of optimal results when possible, stores the new optima found by brute force,
+     * and lets ACO stop as soon as it reaches a cached optimum.
+     *
+     * @param resultCache The cache, or null to always solve.
+     */
+    public void setResultCache(ResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Reads, solves and records one instance file.
+     *
+     * @param file The CSV distance matrix.
+     * @return The JSON line written for the instance.
+     */
+    public CompletableFuture<String> submit(Path file) {
+        String name = file.getFileName().toString();
+        return record(name, CompletableFuture
+                .supplyAsync(() -> {
+                    try {
+                        return Files.readAllBytes(file);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, ioExecutor)
+                .thenCompose(content -> solveAndWrite(name, content)));
+    }
+
+    /**
+     * Solves and records one instance given as the content of a CSV distance matrix.
+     *
+     * @param name The name recorded with the result.
+     * @param content The raw bytes of the CSV distance matrix.
+     * @return The JSON line written for the instance.
+     */
+    public CompletableFuture<String> submit(String name, byte[] content) {
+        return record(name, solveAndWrite(name, content));
+    }
+
+    private CompletableFuture<String> solveAndWrite(String name, byte[] content) {
+        return CompletableFuture
+                .supplyAsync(() -> solve(name, cache.get(content)), cpuExecutor)
+                .thenApplyAsync(this::write, ioExecutor);
+    }
+
+    // Counts and records a failure of any stage of the job, from reading the file to writing the result
+    private CompletableFuture<String> record(String name, CompletableFuture<String> job) {
+        return job.whenComplete((json, error) -> {
+            if (error != null) {
+                failedCount.incrementAndGet();
+                write(errorJson(name, error));
+            }
+        });
+    }
+
+    /**
+     * Solves every CSV file in a directory and waits for all of them.
+     *
+     * @param directory The directory containing the instance files.
+     * @throws IOException If the directory cannot be listed.
+     */
+    public void solveDirectory(Path directory) throws IOException {
+        List<CompletableFuture<String>> jobs = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.csv")) {
+            for (Path file : files) {
+                jobs.add(submit(file));
+            }
+        }
+        for (CompletableFuture<String> job : jobs) {
+            job.handle((json, error) -> json).join();
+        }
+    }
+
+    /**
+     * Solves instance files taken from a queue until {@link #END_OF_QUEUE} is taken, then waits for all of them.
+     *
+     * @param queue The queue of instance files.
+     * @throws InterruptedException If interrupted while waiting for the queue.
+     */
+    public void consume(BlockingQueue<Path> queue) throws InterruptedException {
+        List<CompletableFuture<String>> jobs = new ArrayList<>();
+        Path file;
+        while (!(file = queue.take()).equals(END_OF_QUEUE)) {
+            jobs.add(submit(file));
+        }
+        for (CompletableFuture<String> job : jobs) {
+            job.handle((json, error) -> json).join();
+        }
+    }
+
+    /**
+     * Starts an HTTP endpoint on the loopback interface. POST a CSV distance matrix to /solve (optionally with
+     * ?name=...) to get its JSON result; GET /stats reports the throughput so far.
+     *
+     * @param port The port to listen on, or 0 for any free port.
+     * @return The started server; stop it when done.
+     * @throws IOException If the server cannot be bound.
+     */
+    public HttpServer serve(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/solve", exchange -> {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "{\"error\":\"use POST\"}");
+                return;
+            }
+            byte[] content = exchange.getRequestBody().readAllBytes();
+            String query = exchange.getRequestURI().getQuery();
+            String name = query != null && query.startsWith("name=") ? query.substring(5) : InstanceCache.hash(content);
+            try {
+                respond(exchange, 200, submit(name, content).join());
+            } catch (RuntimeException e) {
+                respond(exchange, 400, errorJson(name, e));
+            }
+        });
+        server.createContext("/stats", exchange -> respond(exchange, 200, statsJson()));
+        server.setExecutor(ioExecutor);
+        server.start();
+        return server;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = (json + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    // Runs on the CPU pool
+    private String solve(String name, TSPInstance instance) {
+        Solver solver;
+        if (instance.cities() <= MAX_EXACT_CITIES) {
+            BruteForce bruteForce = new BruteForce(instance.getDistances());
+            bruteForce.setResultCache(resultCache);
+            solver = new ExactSolver(bruteForce);
+        } else {
+            AntAlgo antAlgo = new AntAlgo();
+            antAlgo.setGraph(instance.getGraph());
+            solver = new AntSolver(antAlgo);
+        }
+        ResultCache results = resultCache;
+        SolverResult result = solver.solve(results == null ? criteria : results.withTarget(criteria, instance.getDistances()));
+        solvedCount.incrementAndGet();
+        return resultJson(name, instance, result);
+    }
+
+    private synchronized String write(String json) {
+        try {
+            output.write(json);
+            output.newLine();
+            output.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return json;
+    }
+
+    /**
+     * @return The number of instances solved per second since the batch solver was created.
+     */
+    public double throughput() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds > 0 ? solvedCount.get() / seconds : 0;
+    }
+
+    private String statsJson() {
+        return "{\"solved\":" + solvedCount.get() + ",\"failed\":" + failedCount.get()
+                + ",\"cachedInstances\":" + cache.size()
+                + ",\"instancesPerSecond\":" + String.format(Locale.ROOT, "%.3f", throughput()) + "}";
+    }
+
+    private static String resultJson(String name, TSPInstance instance, SolverResult result) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"name\":\"").append(escape(name)).append('"');
+        json.append(",\"hash\":\"").append(instance.getHash()).append('"');
+        json.append(",\"cities\":").append(instance.cities());
+        if (result != null) {
+            json.append(",\"solver\":\"").append(result.getSolverName()).append('"');
+            json.append(",\"length\":").append(result.getLength());
+            json.append(",\"optimal\":").append(result.isOptimal());
+            json.append(",\"elapsedMs\":").append(result.getElapsedNanos() / 1_000_000L);
+            json.append(",\"tour\":[");
+            int[] tour = result.getTour();
+            for (int i = 0; i < tour.length; i++) {
+                json.append(i > 0 ? "," : "").append(tour[i]);
+            }
+            json.append(']');
+        }
+        return json.append('}').toString();
+    }
+
+    private static String errorJson(String name, Throwable error) {
+        Throwable cause = error.getCause() != null ? error.getCause() : error;
+        return "{\"name\":\"" + escape(name) + "\",\"error\":\"" + escape(String.valueOf(cause.getMessage())) + "\"}";
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder();
+        for (char ch : text.toCharArray()) {
+            if (ch == '"' || ch == '\\') {
+                escaped.append('\\').append(ch);
+            } else if (ch < 0x20) {
+                escaped.append(String.format(Locale.ROOT, "\\u%04x", (int) ch));
+            } else {
+                escaped.append(ch);
+            }
+        }
+        return escaped.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        cpuExecutor.shutdown();
+        ioExecutor.shutdown();
+        try {
+            cpuExecutor.awaitTermination(1, TimeUnit.MINUTES);
+            ioExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            output.close();
+        }
+    }
+
+    // Serve mode never leaves main, so the batch is closed by a shutdown hook: it waits for the running solves and
+    // flushes the output
+    private static void closeOnShutdown(HttpServer server, BatchSolver batch) {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(0);
+            try {
+                batch.close();
+            } catch (IOException e) {
+                System.err.println("Error: " + e.getMessage());
+            }
+        }));
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: BatchSolver <instance directory> <output.jsonl> [time limit in ms]");
+            System.err.println("       BatchSolver --serve <port> <output.jsonl> [time limit in ms]");
+            return;
+        }
+        boolean serve = args[0].equals("--serve");
+        Path output = Paths.get(serve ? args[2] : args[1]);
+        int limitArg = serve ? 3 : 2;
+        long timeLimitMillis = args.length > limitArg ? Long.parseLong(args[limitArg]) : 2000;
+        TerminationCriteria criteria = TerminationCriteria.timeLimit(timeLimitMillis).withStagnationLimit(200);
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        try (BatchSolver batch = new BatchSolver(output, criteria, threads, 1024)) {
+            batch.setResultCache(ResultCache.openDefault());
+            if (serve) {
+                HttpServer server = batch.serve(Integer.parseInt(args[1]));
+                System.out.println("Listening on http://localhost:" + server.getAddress().getPort() + "/solve");
+                closeOnShutdown(server, batch);
+                Thread.currentThread().join();
+            } else {
+                batch.solveDirectory(Paths.get(args[0]));
+                System.out.println(batch.statsJson());
+            }
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
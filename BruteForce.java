@@ -1,3 +1,4 @@
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -6,6 +7,12 @@ public class BruteForce {
     private List<String> lines;
     private List<Integer> bestTour;
     private int bestLength;
+    private int[][] distanceMatrix;
+    private volatile TourSnapshot bestSoFar;
+    private volatile boolean cancelled;
+    private boolean completed;
+    private boolean verbose = true;
+    private ResultCache resultCache;
     /*Lưu trữ dữ liệu đầu vào, mỗi phần tử trong list là một dòng chứa thông tin về khoảng cách giữa các thành phố. */
     public BruteForce(List<String> lines) {
         this.lines = lines;
@@ -13,29 +20,118 @@ public class BruteForce {
         this.bestLength = Integer.MAX_VALUE;
     }
 
+    /*Dùng trực tiếp một ma trận khoảng cách đã được phân tích sẵn (chỉ đọc, có thể dùng chung giữa nhiều bộ giải). */
+    public BruteForce(int[][] distanceMatrix) {
+        this.distanceMatrix = distanceMatrix;
+        this.bestTour = new ArrayList<>();
+        this.bestLength = Integer.MAX_VALUE;
+    }
+
     /*Tính toán độ dài cho mỗi hoán vị và cập nhật bestTour và bestLength nếu tìm thấy tour ngắn hơn.*/
     public List<Integer> solve() {
         long startTime = System.currentTimeMillis();
-        int numCities = lines.size();
+        long startNanos = System.nanoTime();
+        int iteration = 0;
+        completed = false;
+        int numCities = distanceMatrix != null ? distanceMatrix.length : lines.size();
+
+        /*Nếu tour tối ưu của ma trận này đã có trong cache thì trả về ngay, không cần duyệt hoán vị.*/
+        SolverResult cached = resultCache != null ? resultCache.get(getDistanceMatrix()) : null;
+        if (cached != null) {
+            bestTour = new ArrayList<>();
+            for (int city : cached.getTour()) {
+                bestTour.add(city + 1);
+            }
+            bestLength = (int) cached.getLength();
+            bestSoFar = new TourSnapshot(bestTour.stream().mapToInt(Integer::intValue).toArray(), bestLength, 0, System.nanoTime() - startNanos);
+            completed = true;
+            if (verbose) {
+                System.out.println("\nBrute Force: optimal tour taken from the result cache");
+            }
+            return bestTour;
+        }
+
         List<Integer> tour = new ArrayList<>();
         for (int i = 1; i <= numCities; i++) {
             tour.add(i);
         }
 
-        while (nextPermutation(tour)) {
+        while (!cancelled && nextPermutation(tour)) {
+            iteration++;
             int currentLength = calculateTourLength(tour);
             if (currentLength < bestLength) {
                 bestTour = new ArrayList<>(tour);
                 bestLength = currentLength;
+                bestSoFar = new TourSnapshot(bestTour.stream().mapToInt(Integer::intValue).toArray(),
+                        bestLength, iteration, System.nanoTime() - startNanos);
+            }
+        }
+        completed = !cancelled;
+
+        /*Lưu tour tối ưu vào cache khi đã duyệt hết mọi hoán vị; lỗi ghi file không làm hỏng kết quả.*/
+        if (completed && resultCache != null && bestSoFar != null) {
+            try {
+                resultCache.put(getDistanceMatrix(), SolverResult.fromSnapshot("BruteForce", bestSoFar, 1, true));
+            } catch (IOException e) {
+                System.out.println("Could not write the result cache: " + e.getMessage());
             }
         }
 
         long endTime = System.currentTimeMillis();
         double executionTime = (endTime - startTime) / 1000.0;
-        System.out.println("\nBrute Force Runtime: " + executionTime + " seconds");
+        if (verbose) {
+            System.out.println("\nBrute Force Runtime: " + executionTime + " seconds");
+        }
         return bestTour;
     }
 
+    /*Dùng cache kết quả tối ưu trên đĩa: solve trả về ngay nếu ma trận đã có trong cache, và lưu kết quả mới vào đó. */
+    public void setResultCache(ResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /*Bật hoặc tắt việc in thời gian chạy khi solve kết thúc. */
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    /*Dừng quá trình duyệt hoán vị từ một luồng khác; tour tốt nhất đến lúc đó vẫn được giữ lại. Yêu cầu dừng được giữ cho đến khi gọi reset(). */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /*Huỷ yêu cầu dừng trước khi bắt đầu lần solve() tiếp theo; không gọi từ chính luồng đang giải. */
+    public void reset() {
+        cancelled = false;
+    }
+
+    /*Trả về tour tốt nhất tìm được cho đến hiện tại (thành phố đánh số từ 1), an toàn khi gọi từ luồng khác. */
+    public TourSnapshot bestSoFar() {
+        return bestSoFar;
+    }
+
+    /*Cho biết lần solve gần nhất đã duyệt hết mọi hoán vị, tức bestTour là tối ưu. */
+    public boolean isOptimal() {
+        return completed;
+    }
+
+    /*Trả về ma trận khoảng cách, được xây dựng từ lines ở lần gọi đầu tiên. */
+    int[][] getDistanceMatrix() {
+        if (distanceMatrix == null) {
+            distanceMatrix = lines.stream()
+                    .map(line -> line.split(","))
+                    .map(arr -> {
+                        int[] row = new int[arr.length];
+                        for (int i = 0; i < arr.length; i++) {
+                            row[i] = Integer.parseInt(arr[i]);
+                        }
+                        return row;
+                    })
+                    .toArray(int[][]::new);
+        }
+        return distanceMatrix;
+    }
+
     /*In ra thông tin của tour tốt nhất và độ dài của nó. */
     public void printTourAndLength() {
         System.out.println("Final Best Tour Brute: " + bestTour);
@@ -75,18 +171,10 @@ public class BruteForce {
 
     /* Tính toán tổng chiều dài của tour dựa trên ma trận khoảng cách.
     Ma trận khoảng cách được xây dựng từ danh sách lines, với mỗi phần tử 
-    là một chuỗi chứa khoảng cách từ một thành phố đến tất cả các thành phố khác.*/
+    là một chuỗi chứa khoảng cách từ một thành phố đến tất cả các thành phố khác.
+    Ma trận chỉ được xây dựng một lần ở lần gọi đầu tiên và được dùng lại cho mọi hoán vị sau đó.*/
     private int calculateTourLength(List<Integer> tour) {
-        int[][] distanceMatrix = lines.stream()
-                .map(line -> line.split(","))
-                .map(arr -> {
-                    int[] row = new int[arr.length];
-                    for (int i = 0; i < arr.length; i++) {
-                        row[i] = Integer.parseInt(arr[i]);
-                    }
-                    return row;
-                })
-                .toArray(int[][]::new);
+        int[][] distanceMatrix = getDistanceMatrix();
 
         int totalLength = 0;
         for (int i = 0; i < tour.size(); i++) {
@@ -1,7 +1,7 @@
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.Scanner;
 
 public class DataGenerator {
@@ -30,31 +30,13 @@ public class DataGenerator {
             }
             writer.newLine();
 
-            Random random = new Random();
+            int[][] distances = generateDistances(numCities, RandomProvider.global().newStream());
 
-            // Create a square matrix for distances
-            int[][] distances = new int[numCities + 1][numCities + 1];
-
-            for (int i = 1; i <= numCities; i++) {
-                for (int j = 1; j <= numCities; j++) {
-                    distances[i][j] = -1;
-                }
-            }
             // Write distances between cities to the file   
             for (int i = 1; i <= numCities; i++) {
                 writer.write(String.valueOf(i));
                 for (int j = 1; j <= numCities; j++) {
-                    // Set distance to a fixed value if the city is the same
-                    if (distances[i][j] == -1) {
-                        if (i == j) {
-                            distances[i][j] = 88888; // Distance between a city and itself is 88888
-                        } else {
-                            // Use the same distance for both (i, j) and (j, i)
-                            distances[i][j] = random.nextInt(100) + 1;
-                            distances[j][i] = distances[i][j];
-                        }
-                    }
-                    writer.write("," + distances[i][j]);
+                    writer.write("," + distances[i - 1][j - 1]);
                 }
                 writer.newLine();
             }
@@ -65,6 +47,48 @@ public class DataGenerator {
             e.printStackTrace();
         }
     }
+
+    /**
+     * Generates a random symmetric distance matrix in memory, without the index row and column of the file format.
+     * Distances are between 1 and 100, and the distance between a city and itself is 88888.
+     *
+     * @param numCities The number of cities.
+     * @param random The random stream to draw the distances from.
+     * @return The distance matrix, cities numbered from 0.
+     */
+    public int[][] generateDistances(int numCities, SplittableRandom random) {
+        // Create a square matrix for distances
+        int[][] distances = new int[numCities][numCities];
+
+        for (int i = 0; i < numCities; i++) {
+            // Distance between a city and itself is 88888
+            distances[i][i] = 88888;
+            for (int j = i + 1; j < numCities; j++) {
+                // Use the same distance for both (i, j) and (j, i)
+                distances[i][j] = random.nextInt(100) + 1;
+                distances[j][i] = distances[i][j];
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Generates the same distances as {@link #generateDistances(int, SplittableRandom)} for the same random stream,
+     * directly into a compact store, so large instances never exist as a full matrix.
+     *
+     * @param numCities The number of cities.
+     * @param random The random stream to draw the distances from.
+     * @return The distances, one byte per pair of cities, cities numbered from 0.
+     */
+    public DistanceStore generateStore(int numCities, SplittableRandom random) {
+        DistanceStore distances = DistanceStore.allocate(numCities, 1, 100, 88888);
+        for (int i = 0; i < numCities; i++) {
+            for (int j = i + 1; j < numCities; j++) {
+                distances.set(i, j, random.nextInt(100) + 1);
+            }
+        }
+        return distances;
+    }
 }
 
 
@@ -0,0 +1,386 @@
+import java.nio.ByteBuffer;
+
+/**
+ * DistanceStore keeps a symmetric distance matrix as its upper triangle only, in the narrowest of byte, short or int
+ * that holds the range of the off-diagonal values. Values are stored relative to the smallest one, so the 1..100 weights
+ * of DataGenerator take one byte per city pair: 200 MB for 20,000 cities instead of 1.6 GB as int[][].
+ * A distance outside the current range rebuilds the cells, wider or from a lower offset, so any int can be set.
+ * The diagonal (the 88888 sentinel of the generated instances) is not stored; it is one value for all cities.
+ * Cities are numbered from 0.
+ * <p>
+ * Only the genetic algorithm reads distances from a store. The island path uses it end to end: IslandCoordinator keeps
+ * a symmetric instance as a store and sends its cells to the workers, which evolve on the received store. The other
+ * entry points (main, BatchSolver, PortfolioRunner, AntAlgo and BruteForce) still take a dense int[][], so a large
+ * instance should be solved through the islands.
+ */
+public final class DistanceStore {
+    /** The largest number of city pairs a single array can hold. */
+    private static final long MAX_PAIRS = Integer.MAX_VALUE - 8;
+
+    private final int cities;
+    private final int diagonal;
+    private final int pairs;
+    private Cells cells;
+    private int offset;
+
+    private DistanceStore(int cities, int diagonal, int pairs, int offset, Cells cells) {
+        this.cities = cities;
+        this.diagonal = diagonal;
+        this.pairs = pairs;
+        this.offset = offset;
+        this.cells = cells;
+    }
+
+    /**
+     * Creates an empty store for distances between min and max; fill it with {@link #set(int, int, int)}.
+     *
+     * @param cities The number of cities.
+     * @param min The smallest distance between two different cities.
+     * @param max The largest distance between two different cities.
+     * @param diagonal The distance between a city and itself.
+     * @return The store, in the narrowest width that holds max - min.
+     */
+    public static DistanceStore allocate(int cities, int min, int max, int diagonal) {
+        if (min > max) {
+            throw new IllegalArgumentException("min " + min + " > max " + max);
+        }
+        int pairs = pairs(cities);
+        return new DistanceStore(cities, diagonal, pairs, min, Cells.allocate((long) max - min, pairs));
+    }
+
+    /**
+     * Creates an empty store of a given width, to be filled with {@link #readCells}, e.g. from the cells of another store.
+     *
+     * @param width The number of bytes per stored distance: 1, 2 or 4.
+     * @param offset The distance stored as 0.
+     */
+    static DistanceStore ofWidth(int cities, int diagonal, int offset, int width) {
+        int pairs = pairs(cities);
+        return new DistanceStore(cities, diagonal, pairs, offset, Cells.ofWidth(width, pairs));
+    }
+
+    private static int pairs(int cities) {
+        long pairs = (long) cities * (cities - 1) / 2;
+        if (pairs > MAX_PAIRS) {
+            throw new IllegalArgumentException(cities + " cities exceed the " + MAX_PAIRS + " city pairs of one array");
+        }
+        return (int) pairs;
+    }
+
+    /**
+     * @return True if {@link #of(int[][])} accepts the matrix: square, symmetric, one value on the whole diagonal,
+     *         and few enough cities for one array.
+     */
+    public static boolean canStore(int[][] matrix) {
+        int n = matrix.length;
+        if ((long) n * (n - 1) / 2 > MAX_PAIRS) {
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            if (matrix[i].length != n || matrix[i][i] != matrix[0][0]) {
+                return false;
+            }
+            for (int j = i + 1; j < n; j++) {
+                if (matrix[i][j] != matrix[j][i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies a full matrix into a store.
+     *
+     * @param matrix A square, symmetric matrix with the same value on the whole diagonal.
+     * @return The store.
+     * @throws IllegalArgumentException If the matrix is not square, not symmetric or has different diagonal values.
+     */
+    public static DistanceStore of(int[][] matrix) {
+        int n = matrix.length;
+        int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            if (matrix[i].length != n) {
+                throw new IllegalArgumentException("Row " + i + " has " + matrix[i].length + " values, expected " + n);
+            }
+            if (matrix[i][i] != matrix[0][0]) {
+                throw new IllegalArgumentException("Diagonal value " + matrix[i][i] + " at " + i + " differs from " + matrix[0][0]);
+            }
+            for (int j = i + 1; j < n; j++) {
+                if (matrix[i][j] != matrix[j][i]) {
+                    throw new IllegalArgumentException("Matrix is not symmetric at " + i + ", " + j);
+                }
+                min = Math.min(min, matrix[i][j]);
+                max = Math.max(max, matrix[i][j]);
+            }
+        }
+        DistanceStore store = allocate(n, n < 2 ? 0 : min, n < 2 ? 0 : max, n == 0 ? 0 : matrix[0][0]);
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                store.set(i, j, matrix[i][j]);
+            }
+        }
+        return store;
+    }
+
+    public int cities() {
+        return cities;
+    }
+
+    public int getDiagonal() {
+        return diagonal;
+    }
+
+    /**
+     * @return The number of bytes per stored distance: 1, 2 or 4.
+     */
+    public int width() {
+        return cells.width();
+    }
+
+    /**
+     * @return The distance stored as 0; stored values are unsigned and relative to it.
+     */
+    int getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return The number of stored city pairs, the upper triangle in row order.
+     */
+    int pairs() {
+        return pairs;
+    }
+
+    /**
+     * Copies count stored values, starting at pair from, into a buffer at the width of the store (big-endian).
+     */
+    void writeCells(ByteBuffer out, int from, int count) {
+        cells.write(out, from, count);
+    }
+
+    /**
+     * Fills count stored values, starting at pair from, from a buffer written by {@link #writeCells} at the same width.
+     */
+    void readCells(ByteBuffer in, int from, int count) {
+        cells.read(in, from, count);
+    }
+
+    /**
+     * @return The distance between cities i and j, in both directions.
+     */
+    public int get(int i, int j) {
+        if (i == j) {
+            return diagonal;
+        }
+        return (int) (cells.load(i < j ? index(i, j) : index(j, i)) + offset);
+    }
+
+    /**
+     * Sets the distance between cities i and j in both directions. A distance outside the range of the store first
+     * rebuilds it for the range of its values and the new distance, which takes one pass over all city pairs.
+     *
+     * @throws IllegalArgumentException If i equals j.
+     */
+    public void set(int i, int j, int distance) {
+        if (i == j) {
+            throw new IllegalArgumentException("The diagonal is fixed at " + diagonal);
+        }
+        long stored = (long) distance - offset;
+        if (stored < 0 || stored > cells.maxStored()) {
+            rebuild(distance);
+            stored = (long) distance - offset;
+        }
+        cells.store(i < j ? index(i, j) : index(j, i), (int) stored);
+    }
+
+    /*Move the values into the narrowest cells that hold both their range and the distance, relative to the new minimum*/ 
+    private void rebuild(int distance) {
+        long min = distance, max = distance;
+        for (int index = 0; index < pairs; index++) {
+            long value = cells.load(index) + (long) offset;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        Cells rebuilt = Cells.allocate(max - min, pairs);
+        for (int index = 0; index < pairs; index++) {
+            rebuilt.store(index, (int) (cells.load(index) + (long) offset - min));
+        }
+        cells = rebuilt;
+        offset = (int) min;
+    }
+
+    /**
+     * @return The full matrix, e.g. for code that needs int[][]; it takes 4 * cities^2 bytes.
+     */
+    public int[][] toMatrix() {
+        int[][] matrix = new int[cities][cities];
+        for (int i = 0; i < cities; i++) {
+            matrix[i][i] = diagonal;
+            for (int j = i + 1; j < cities; j++) {
+                matrix[i][j] = matrix[j][i] = get(i, j);
+            }
+        }
+        return matrix;
+    }
+
+    /*Row i of the upper triangle starts after the n - 1 + n - 2 + ... + n - i pairs of the rows above it*/ 
+    private int index(int i, int j) {
+        return (int) ((long) i * (2 * cities - i - 1) / 2) + j - i - 1;
+    }
+
+    /*The stored values, relative to the offset; load returns them unsigned*/ 
+    private abstract static class Cells {
+        static Cells allocate(long range, int pairs) {
+            if (range <= 0xFF) {
+                return new ByteCells(pairs);
+            } else if (range <= 0xFFFF) {
+                return new ShortCells(pairs);
+            }
+            return new IntCells(pairs);
+        }
+
+        static Cells ofWidth(int width, int pairs) {
+            switch (width) {
+                case 1:
+                    return new ByteCells(pairs);
+                case 2:
+                    return new ShortCells(pairs);
+                case 4:
+                    return new IntCells(pairs);
+                default:
+                    throw new IllegalArgumentException("No store is " + width + " bytes wide");
+            }
+        }
+
+        abstract int width();
+
+        abstract void write(ByteBuffer out, int from, int count);
+
+        abstract void read(ByteBuffer in, int from, int count);
+
+        abstract long load(int index);
+
+        abstract void store(int index, int stored);
+
+        abstract long maxStored();
+    }
+
+    private static final class ByteCells extends Cells {
+        private final byte[] distances;
+
+        ByteCells(int pairs) {
+            this.distances = new byte[pairs];
+        }
+
+        @Override
+        int width() {
+            return 1;
+        }
+
+        @Override
+        long load(int index) {
+            return distances[index] & 0xFF;
+        }
+
+        @Override
+        void store(int index, int stored) {
+            distances[index] = (byte) stored;
+        }
+
+        @Override
+        void write(ByteBuffer out, int from, int count) {
+            out.put(distances, from, count);
+        }
+
+        @Override
+        void read(ByteBuffer in, int from, int count) {
+            in.get(distances, from, count);
+        }
+
+        @Override
+        long maxStored() {
+            return 0xFF;
+        }
+    }
+
+    private static final class ShortCells extends Cells {
+        private final char[] distances;
+
+        ShortCells(int pairs) {
+            this.distances = new char[pairs];
+        }
+
+        @Override
+        int width() {
+            return 2;
+        }
+
+        @Override
+        long load(int index) {
+            return distances[index];
+        }
+
+        @Override
+        void store(int index, int stored) {
+            distances[index] = (char) stored;
+        }
+
+        @Override
+        void write(ByteBuffer out, int from, int count) {
+            out.asCharBuffer().put(distances, from, count);
+            out.position(out.position() + 2 * count);
+        }
+
+        @Override
+        void read(ByteBuffer in, int from, int count) {
+            in.asCharBuffer().get(distances, from, count);
+            in.position(in.position() + 2 * count);
+        }
+
+        @Override
+        long maxStored() {
+            return 0xFFFF;
+        }
+    }
+
+    private static final class IntCells extends Cells {
+        private final int[] distances;
+
+        IntCells(int pairs) {
+            this.distances = new int[pairs];
+        }
+
+        @Override
+        int width() {
+            return 4;
+        }
+
+        @Override
+        long load(int index) {
+            return distances[index] & 0xFFFFFFFFL;
+        }
+
+        @Override
+        void store(int index, int stored) {
+            distances[index] = stored;
+        }
+
+        @Override
+        void write(ByteBuffer out, int from, int count) {
+            out.asIntBuffer().put(distances, from, count);
+            out.position(out.position() + 4 * count);
+        }
+
+        @Override
+        void read(ByteBuffer in, int from, int count) {
+            in.asIntBuffer().get(distances, from, count);
+            in.position(in.position() + 4 * count);
+        }
+
+        @Override
+        long maxStored() {
+            return 0xFFFFFFFFL;
+        }
+    }
+}
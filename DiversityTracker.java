@@ -0,0 +1,174 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * DiversityTracker measures how diverse a population of tours is from the counts of its undirected edges,
+ * updated per added or removed tour in O(cities) instead of recomputed over the whole population.
+ * <ul>
+ * <li>Edge entropy: the entropy of the edge frequencies, scaled to 0 when all tours are clones and 1 when no two tours share an edge.</li>
+ * <li>Edge distance: the mean fraction of edges two tours do not share, over all pairs of tours.</li>
+ * </ul>
+ * The counts are kept in an open-addressing table of primitive keys and counts, so the memory grows with the number of
+ * distinct edges in the population, not with the square of the number of cities.
+ */
+public class DiversityTracker {
+    private static final long EMPTY = -1;
+
+    private final long cities;
+    private long[] keys = newKeys(64);
+    private int[] counts = new int[64];
+    private int distinctEdges;
+
+    private int tours;
+    private int tourLength;
+    // Sum of c * ln(c) over the edge counts c, for the entropy
+    private double countLogCount;
+    // Sum of c * (c - 1) / 2 over the edge counts c: the number of shared edges over all pairs of tours
+    private long sharedPairs;
+
+    /**
+     * @param cities The number of cities; tours number them from 1.
+     */
+    public DiversityTracker(int cities) {
+        this.cities = cities;
+    }
+
+    public void add(List<Integer> tour) {
+        tours++;
+        tourLength = tour.size();
+        for (int i = 0; i < tour.size(); i++) {
+            int count = increment(edge(tour.get(i), tour.get((i + 1) % tour.size())));
+            countLogCount += countLog(count) - countLog(count - 1);
+            sharedPairs += count - 1;
+        }
+    }
+
+    public void remove(List<Integer> tour) {
+        tours--;
+        for (int i = 0; i < tour.size(); i++) {
+            int count = decrement(edge(tour.get(i), tour.get((i + 1) % tour.size())));
+            countLogCount += countLog(count) - countLog(count + 1);
+            sharedPairs -= count;
+        }
+    }
+
+    public int size() {
+        return tours;
+    }
+
+    public int getDistinctEdges() {
+        return distinctEdges;
+    }
+
+    /**
+     * @return The edge entropy between 0 (all tours are clones) and 1 (no edge is shared), or 1 for fewer than two tours.
+     */
+    public double entropy() {
+        if (tours < 2 || tourLength < 2) {
+            return 1;
+        }
+        double edges = (double) tours * tourLength;
+        double entropy = Math.log(edges) - countLogCount / edges;
+        return Math.max(0, Math.min(1, (entropy - Math.log(tourLength)) / Math.log(tours)));
+    }
+
+    /**
+     * @return The mean fraction of edges that two tours do not share, or 1 for fewer than two tours.
+     */
+    public double edgeDistance() {
+        if (tours < 2 || tourLength == 0) {
+            return 1;
+        }
+        double pairs = (double) tours * (tours - 1) / 2;
+        return 1 - sharedPairs / pairs / tourLength;
+    }
+
+    private static double countLog(int count) {
+        return count <= 1 ? 0 : count * Math.log(count);
+    }
+
+    /*Key of the undirected edge between two cities*/ 
+    private long edge(int a, int b) {
+        return a < b ? a * cities + b : b * cities + a;
+    }
+
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - Integer.numberOfTrailingZeros(keys.length)));
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int i = slot(key);
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private int increment(long key) {
+        int i = find(key);
+        if (keys[i] == EMPTY) {
+            keys[i] = key;
+            distinctEdges++;
+            if (2 * distinctEdges > keys.length) {
+                resize(2 * keys.length);
+                i = find(key);
+            }
+        }
+        return ++counts[i];
+    }
+
+    private int decrement(long key) {
+        int i = find(key);
+        if (keys[i] == EMPTY) {
+            throw new IllegalStateException("Removed a tour that was not added");
+        }
+        int count = --counts[i];
+        if (count == 0) {
+            delete(i);
+            distinctEdges--;
+        }
+        return count;
+    }
+
+    /*Linear probing deletion: move later entries of the same probe run back into the hole*/ 
+    private void delete(int hole) {
+        int mask = keys.length - 1;
+        int j = hole;
+        while (true) {
+            j = (j + 1) & mask;
+            if (keys[j] == EMPTY) {
+                keys[hole] = EMPTY;
+                counts[hole] = 0;
+                return;
+            }
+            int home = slot(keys[j]);
+            boolean reachable = hole <= j ? hole < home && home <= j : hole < home || home <= j;
+            if (!reachable) {
+                keys[hole] = keys[j];
+                counts[hole] = counts[j];
+                hole = j;
+            }
+        }
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = newKeys(capacity);
+        counts = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int j = find(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                counts[j] = oldCounts[i];
+            }
+        }
+    }
+
+    private static long[] newKeys(int capacity) {
+        long[] keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+}
@@ -0,0 +1,60 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * EdgeUpdate is a change of one directed distance in the matrix, e.g. from a traffic feed.
+ * Cities are the matrix indices numbered from 0 (GA city k is index k - 1).
+ */
+public final class EdgeUpdate {
+    private final int from;
+    private final int to;
+    private final int weight;
+
+    public EdgeUpdate(int from, int to, int weight) {
+        this.from = from;
+        this.to = to;
+        this.weight = weight;
+    }
+
+    /**
+     * @return The updates of both directions of an edge, for symmetric matrices.
+     */
+    public static List<EdgeUpdate> symmetric(int from, int to, int weight) {
+        return Arrays.asList(new EdgeUpdate(from, to, weight), new EdgeUpdate(to, from, weight));
+    }
+
+    /**
+     * Checks a batch of updates before any of them is applied, so an invalid one cannot leave the distances half updated.
+     *
+     * @param updates The updates.
+     * @param cities The number of cities of the matrix.
+     * @throws IllegalArgumentException If an update has a city outside the matrix or is on the diagonal.
+     */
+    public static void validate(List<EdgeUpdate> updates, int cities) {
+        for (EdgeUpdate update : updates) {
+            if (update.from < 0 || update.from >= cities || update.to < 0 || update.to >= cities) {
+                throw new IllegalArgumentException("Update " + update + " is outside the " + cities + " cities");
+            }
+            if (update.from == update.to) {
+                throw new IllegalArgumentException("Update " + update + " is on the diagonal");
+            }
+        }
+    }
+
+    public int getFrom() {
+        return from;
+    }
+
+    public int getTo() {
+        return to;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    @Override
+    public String toString() {
+        return from + "->" + to + "=" + weight;
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * ExactSolver adapts {@link BruteForce} to the {@link Solver} interface.
+ * Brute force ignores the termination criteria and only stops early when cancelled;
+ * if it enumerates every permutation, its result is marked as optimal.
+ */
+public class ExactSolver implements Solver {
+    private final BruteForce bruteForce;
+
+    public ExactSolver(BruteForce bruteForce) {
+        this.bruteForce = bruteForce;
+        this.bruteForce.setVerbose(false);
+    }
+
+    @Override
+    public String name() {
+        return "Exact";
+    }
+
+    @Override
+    public SolverResult solve(TerminationCriteria criteria) {
+        bruteForce.solve();
+        return SolverResult.fromSnapshot(name(), bruteForce.bestSoFar(), 1, bruteForce.isOptimal());
+    }
+
+    @Override
+    public SolverResult bestSoFar() {
+        return SolverResult.fromSnapshot(name(), bruteForce.bestSoFar(), 1, false);
+    }
+
+    @Override
+    public void cancel() {
+        bruteForce.cancel();
+    }
+
+    @Override
+    public void reset() {
+        bruteForce.reset();
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * GeneticSolver adapts {@link TSPSolver} to the {@link Solver} interface.
+ * The genetic algorithm numbers cities from 1; results are converted to numbering from 0.
+ */
+public class GeneticSolver implements Solver {
+    private final TSPSolver tspSolver;
+    private final int populationSize;
+    private final int cities;
+    private boolean steadyState;
+
+    /**
+     * @param tspGeneticAlgorithm The genetic algorithm with its operators and distance data.
+     * @param populationSize The size of the population.
+     * @param cities The number of cities in the problem.
+     */
+    public GeneticSolver(TSPGeneticAlgorithm tspGeneticAlgorithm, int populationSize, int cities) {
+        this.tspSolver = new TSPSolver(tspGeneticAlgorithm);
+        this.tspSolver.setVerbose(false);
+        this.populationSize = populationSize;
+        this.cities = cities;
+    }
+
+    /**
+     * @param steadyState True to run the steady-state engine (in-place replacement of the worst individual)
+     *                    instead of the generational one.
+     */
+    public void setSteadyState(boolean steadyState) {
+        this.steadyState = steadyState;
+    }
+
+    @Override
+    public String name() {
+        return "GA";
+    }
+
+    @Override
+    public SolverResult solve(TerminationCriteria criteria) {
+        if (steadyState) {
+            tspSolver.solveSteadyState(criteria, populationSize, cities);
+        } else {
+            tspSolver.solve(criteria, populationSize, cities);
+        }
+        return bestSoFar();
+    }
+
+    @Override
+    public SolverResult bestSoFar() {
+        return SolverResult.fromSnapshot(name(), tspSolver.bestSoFar(), 1, false);
+    }
+
+    @Override
+    public void cancel() {
+        tspSolver.cancel();
+    }
+
+    @Override
+    public void reset() {
+        tspSolver.reset();
+    }
+}
@@ -0,0 +1,295 @@
+import java.util.Arrays;
+
+/**
+ * HeldKarpBound computes a lower bound on the length of any tour with the Held-Karp 1-tree relaxation.
+ * A 1-tree is a minimum spanning tree over the cities 1..n-1 (built with an O(n^2) Prim on primitive arrays)
+ * plus the two shortest edges of city 0. Every tour is a 1-tree, so the cheapest 1-tree is a lower bound;
+ * subgradient optimization of city penalties (pi) then pushes the tree towards degree two everywhere and
+ * raises the bound, typically to within a few percent of the optimum.
+ *
+ * The computation can run on a background thread while the solvers work: {@link #getBound()} always returns the
+ * best bound found so far, and solvers feed their best tour back through {@link #offerUpperBound(double)},
+ * which sharpens the subgradient step size. Asymmetric matrices are bounded through min(d[i][j], d[j][i]).
+ * {@link #stop()} only pauses the optimization: the next {@link #compute()} or {@link #startInBackground()}
+ * continues from the penalties and step size reached so far. Only one thread computes at a time.
+ */
+public class HeldKarpBound implements Runnable {
+    // Step size multiplier, halved whenever the bound stops improving
+    private static final double INITIAL_LAMBDA = 2.0;
+    private static final double MIN_LAMBDA = 1e-6;
+
+    private final int n;
+    private final double[][] weights;
+    private final boolean integral;
+    private final int maxIterations;
+
+    // Working arrays, allocated once; only the thread holding computing uses them
+    private final Object computing = new Object();
+    private final double[] pi;
+    private final int[] degree;
+    private final double[] key;
+    private final int[] parent;
+    private final boolean[] inTree;
+
+    private volatile double bound = 0;
+    private volatile double upperBound = Double.MAX_VALUE;
+    private volatile boolean stopped;
+    private volatile boolean finished;
+
+    // Optimization state, kept across stop() so a later run continues where the last one paused
+    private int iteration;
+    private double lambda = INITIAL_LAMBDA;
+    private double best = -Double.MAX_VALUE;
+    private int sinceImprovement;
+    private Thread background;
+
+    /**
+     * @param distances The distance matrix; the diagonal is ignored.
+     * @param maxIterations The maximum number of subgradient iterations.
+     */
+    public HeldKarpBound(int[][] distances, int maxIterations) {
+        this(toDoubles(distances), maxIterations);
+    }
+
+    /**
+     * @param graph The distance matrix, e.g. the graph of the ant colony; the diagonal is ignored.
+     * @param maxIterations The maximum number of subgradient iterations.
+     */
+    public HeldKarpBound(double[][] graph, int maxIterations) {
+        this.n = graph.length;
+        this.weights = new double[n][n];
+        boolean whole = true;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                weights[i][j] = Math.min(graph[i][j], graph[j][i]);
+                whole &= weights[i][j] == Math.rint(weights[i][j]);
+            }
+        }
+        this.integral = whole;
+        this.maxIterations = maxIterations;
+        this.pi = new double[n];
+        this.degree = new int[n];
+        this.key = new double[n];
+        this.parent = new int[n];
+        this.inTree = new boolean[n];
+    }
+
+    private static double[][] toDoubles(int[][] distances) {
+        double[][] graph = new double[distances.length][];
+        for (int i = 0; i < distances.length; i++) {
+            graph[i] = Arrays.stream(distances[i]).asDoubleStream().toArray();
+        }
+        return graph;
+    }
+
+    /**
+     * @return The best lower bound found so far; 0 until the first 1-tree has been computed.
+     */
+    public double getBound() {
+        return bound;
+    }
+
+    /**
+     * @return True once the optimization has converged or hit its iteration limit; a stopped one is only paused.
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Tells the optimizer the length of a known tour. Safe to call from any thread.
+     *
+     * @param length The length of a tour.
+     */
+    public void offerUpperBound(double length) {
+        if (length < upperBound) {
+            upperBound = length;
+        }
+    }
+
+    /**
+     * Pauses a running optimization after its current iteration. Safe to call from any thread.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Starts or resumes the optimization on a daemon thread, unless it is already running there or has finished.
+     *
+     * @return The thread computing the bound, or null if it has finished.
+     */
+    public synchronized Thread startInBackground() {
+        stopped = false;
+        if (finished) {
+            return null;
+        }
+        if (background == null || !background.isAlive()) {
+            background = new Thread(this, "held-karp-bound");
+            background.setDaemon(true);
+            background.start();
+        }
+        return background;
+    }
+
+    @Override
+    public void run() {
+        optimize();
+    }
+
+    /**
+     * Runs or resumes the subgradient optimization on the calling thread, waiting for a background run to pause
+     * or finish first.
+     *
+     * @return The lower bound when the optimization finished or was stopped.
+     */
+    public double compute() {
+        stopped = false;
+        return optimize();
+    }
+
+    private double optimize() {
+        synchronized (computing) {
+            return iterate();
+        }
+    }
+
+    private double iterate() {
+        if (finished) {
+            return bound;
+        }
+        if (n < 3) {
+            bound = n == 2 ? 2 * weights[0][1] : 0;
+            finished = true;
+            return bound;
+        }
+        if (upperBound == Double.MAX_VALUE) {
+            offerUpperBound(nearestNeighborLength());
+        }
+
+        int patience = Math.max(10, n / 2);
+        for (; iteration < maxIterations && lambda > MIN_LAMBDA; iteration++) {
+            if (stopped) {
+                return bound;
+            }
+            double value = oneTree();
+            if (value > best + 1e-9) {
+                best = value;
+                sinceImprovement = 0;
+                publish(value);
+            } else if (++sinceImprovement >= patience) {
+                lambda /= 2;
+                sinceImprovement = 0;
+            }
+
+            // Subgradient: degree - 2 for every city; all zero means the 1-tree is a tour, hence optimal
+            double norm = 0;
+            for (int i = 0; i < n; i++) {
+                int g = degree[i] - 2;
+                norm += g * g;
+            }
+            if (norm == 0 || bound >= upperBound) {
+                break;
+            }
+            double step = lambda * Math.max(upperBound - value, 1e-9 * Math.abs(upperBound)) / norm;
+            for (int i = 0; i < n; i++) {
+                pi[i] += step * (degree[i] - 2);
+            }
+        }
+        finished = true;
+        return bound;
+    }
+
+    // Integer distances give integer tour lengths, so a fractional bound can be rounded up
+    private void publish(double value) {
+        double rounded = integral ? Math.ceil(value - 1e-6) : value;
+        if (rounded > bound) {
+            bound = rounded;
+        }
+    }
+
+    // Cost of the cheapest 1-tree under the current penalties, minus 2 * sum(pi); fills degree[]
+    private double oneTree() {
+        Arrays.fill(degree, 0);
+        Arrays.fill(inTree, false);
+        Arrays.fill(key, Double.MAX_VALUE);
+        key[1] = 0;
+        parent[1] = -1;
+
+        double total = 0;
+        for (int k = 1; k < n; k++) {
+            int u = -1;
+            for (int v = 1; v < n; v++) {
+                if (!inTree[v] && (u < 0 || key[v] < key[u])) {
+                    u = v;
+                }
+            }
+            inTree[u] = true;
+            total += key[u];
+            if (parent[u] >= 0) {
+                degree[u]++;
+                degree[parent[u]]++;
+            }
+            for (int v = 1; v < n; v++) {
+                if (!inTree[v]) {
+                    double cost = weights[u][v] + pi[u] + pi[v];
+                    if (cost < key[v]) {
+                        key[v] = cost;
+                        parent[v] = u;
+                    }
+                }
+            }
+        }
+
+        // Connect city 0 with its two cheapest edges
+        int first = -1, second = -1;
+        for (int v = 1; v < n; v++) {
+            double cost = weights[0][v] + pi[v];
+            if (first < 0 || cost < weights[0][first] + pi[first]) {
+                second = first;
+                first = v;
+            } else if (second < 0 || cost < weights[0][second] + pi[second]) {
+                second = v;
+            }
+        }
+        total += weights[0][first] + pi[first] + weights[0][second] + pi[second] + 2 * pi[0];
+        degree[0] = 2;
+        degree[first]++;
+        degree[second]++;
+
+        double penalties = 0;
+        for (int i = 0; i < n; i++) {
+            penalties += pi[i];
+        }
+        return total - 2 * penalties;
+    }
+
+    // A quick tour for the initial step size, when no solver has offered one yet
+    private double nearestNeighborLength() {
+        boolean[] visited = new boolean[n];
+        int current = 0;
+        visited[0] = true;
+        double length = 0;
+        for (int step = 1; step < n; step++) {
+            int next = -1;
+            for (int v = 0; v < n; v++) {
+                if (!visited[v] && (next < 0 || weights[current][v] < weights[current][next])) {
+                    next = v;
+                }
+            }
+            visited[next] = true;
+            length += weights[current][next];
+            current = next;
+        }
+        return length + weights[current][0];
+    }
+
+    /**
+     * @param tourLength The length of a tour.
+     * @param bound A lower bound on the length of any tour.
+     * @return The relative gap (tourLength - bound) / bound, or infinity if there is no positive bound yet.
+     */
+    public static double gap(double tourLength, double bound) {
+        return bound > 0 ? (tourLength - bound) / bound : Double.POSITIVE_INFINITY;
+    }
+}
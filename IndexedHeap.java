@@ -0,0 +1,93 @@
+/**
+ * IndexedHeap is a binary heap over the slots 0..size-1 of an external int key array, such as the cached fitness
+ * values of a population. Because it knows the heap position of every slot, the key of any slot can be changed
+ * in place and the heap repaired in O(log size), without removing and re-inserting the slot.
+ * It is a max-heap (the top is the slot with the largest key) or a min-heap, depending on the constructor flag.
+ */
+public final class IndexedHeap {
+    private final int[] keys;
+    private final boolean max;
+    private final int[] heap;
+    private final int[] position;
+
+    /**
+     * Builds the heap over all slots of the key array in O(size).
+     *
+     * @param keys The keys, indexed by slot; the heap reads them but never writes them.
+     * @param max True for a max-heap, false for a min-heap.
+     */
+    public IndexedHeap(int[] keys, boolean max) {
+        this.keys = keys;
+        this.max = max;
+        this.heap = new int[keys.length];
+        this.position = new int[keys.length];
+        for (int slot = 0; slot < keys.length; slot++) {
+            heap[slot] = slot;
+            position[slot] = slot;
+        }
+        for (int i = keys.length / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    /**
+     * @return The slot with the largest key for a max-heap, the smallest for a min-heap.
+     */
+    public int top() {
+        return heap[0];
+    }
+
+    /**
+     * Restores the heap order after the key of a slot has been changed.
+     *
+     * @param slot The slot whose key changed.
+     */
+    public void update(int slot) {
+        int i = position[slot];
+        siftUp(i);
+        siftDown(position[slot]);
+    }
+
+    public int size() {
+        return heap.length;
+    }
+
+    // True if the slot at heap index a belongs above the slot at heap index b
+    private boolean above(int a, int b) {
+        return max ? keys[heap[a]] > keys[heap[b]] : keys[heap[a]] < keys[heap[b]];
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!above(i, parent)) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= heap.length) {
+                return;
+            }
+            int child = left + 1 < heap.length && above(left + 1, left) ? left + 1 : left;
+            if (!above(child, i)) {
+                return;
+            }
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int slot = heap[a];
+        heap[a] = heap[b];
+        heap[b] = slot;
+        position[heap[a]] = a;
+        position[heap[b]] = b;
+    }
+}
@@ -0,0 +1,67 @@
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * InstanceCache shares parsed distance matrices between jobs. Instances are keyed by the SHA-256 hash of the
+ * file content, so the same matrix submitted twice (under any name) is only parsed once.
+ */
+public class InstanceCache {
+    private final ConcurrentHashMap<String, TSPInstance> instances = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    /**
+     * @param maxEntries The number of instances to keep; when full, an arbitrary entry is evicted.
+     */
+    public InstanceCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the parsed instance for the given file content, parsing it on first use.
+     *
+     * @param content The raw bytes of a CSV distance matrix.
+     * @return The parsed instance.
+     * @throws IllegalArgumentException If the content is not a valid distance matrix.
+     */
+    public TSPInstance get(byte[] content) {
+        String hash = hash(content);
+        TSPInstance instance = instances.get(hash);
+        if (instance != null) {
+            return instance;
+        }
+        if (instances.size() >= maxEntries) {
+            Iterator<String> keys = instances.keySet().iterator();
+            if (keys.hasNext()) {
+                instances.remove(keys.next());
+            }
+        }
+        return instances.computeIfAbsent(hash, h -> TSPInstance.parse(h,
+                Arrays.asList(new String(content, StandardCharsets.UTF_8).split("\\R"))));
+    }
+
+    public int size() {
+        return instances.size();
+    }
+
+    /**
+     * @param content The bytes to hash.
+     * @return The lowercase hexadecimal SHA-256 hash of the bytes.
+     */
+    public static String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,375 @@
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * IslandCoordinator runs the distributed island model: each {@link IslandWorker} process runs its own steady-state GA
+ * (an island) and reports its best tour; the coordinator keeps the global best and sends it to the other islands as a migrant.
+ * The coordinator handles membership: workers may join at any time before the deadline and get the remaining time;
+ * a worker that disconnects or fails is dropped and the others continue. The run ends when every worker that joined
+ * has finished or left (after the deadline, if none finished), or at the latest a grace period after the deadline.
+ * A symmetric instance is kept and sent to the workers as a {@link DistanceStore}, so neither side holds the dense matrix;
+ * the distances are encoded once and streamed to each worker in frames of bounded size (see IslandProtocol).
+ * The protocol has no authentication; bind to the loopback address (the default) unless the network is trusted.
+ */
+public class IslandCoordinator {
+    // How long to wait for workers to send their final tours after the deadline
+    private static final long GRACE_MILLIS = 2000;
+    // Upper bound of one select, so deadlines are checked even when nothing happens
+    private static final long SELECT_MILLIS = 100;
+    private static final int POPULATION_SIZE = 100;
+    private static final int MIGRATION_MILLIS = 250;
+
+    private final int cities;
+    // Exactly one of them is set: the store for symmetric instances, the matrix for all others
+    private final DistanceStore store;
+    private final int[][] matrix;
+    private final List<ByteBuffer> distanceFrames;
+    private final long timeLimitMillis;
+    private final Map<SocketChannel, Worker> workers = new HashMap<>();
+    private int nextWorkerId;
+    private int finishedWorkers;
+    private long startNanos;
+    private long deadlineNanos;
+    private int[] bestTour;
+    private int bestLength = Integer.MAX_VALUE;
+    private boolean stopSent;
+
+    // State of one connected worker
+    private static final class Worker {
+        final int id;
+        final SocketChannel channel;
+        SelectionKey key;
+        ByteBuffer in = ByteBuffer.allocate(1 << 16);
+        final Queue<ByteBuffer> out = new ArrayDeque<>();
+        boolean joined;
+
+        Worker(int id, SocketChannel channel) {
+            this.id = id;
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * @param distances The distance matrix of the instance, sent to every worker; a symmetric one is kept as a
+     *                  {@link DistanceStore}, so the caller may drop the matrix.
+     * @param timeLimitMillis How long the islands evolve, counted from the first worker that joins; must be positive.
+     * @throws IllegalArgumentException If the time limit is not positive or the matrix is not square.
+     */
+    public IslandCoordinator(int[][] distances, long timeLimitMillis) {
+        this(distances.length, DistanceStore.canStore(distances) ? DistanceStore.of(distances) : null, distances, timeLimitMillis);
+    }
+
+    /**
+     * @param distances The distances of a symmetric instance, sent to every worker.
+     * @param timeLimitMillis How long the islands evolve, counted from the first worker that joins; must be positive.
+     * @throws IllegalArgumentException If the time limit is not positive.
+     */
+    public IslandCoordinator(DistanceStore distances, long timeLimitMillis) {
+        this(distances.cities(), distances, null, timeLimitMillis);
+    }
+
+    // The distance frames are encoded here, so an instance that cannot be sent fails before any worker joins
+    private IslandCoordinator(int cities, DistanceStore store, int[][] matrix, long timeLimitMillis) {
+        if (timeLimitMillis <= 0) {
+            throw new IllegalArgumentException("The time limit must be positive: " + timeLimitMillis);
+        }
+        this.cities = cities;
+        this.store = store;
+        this.matrix = store != null ? null : checkSquare(matrix);
+        this.distanceFrames = store != null ? IslandProtocol.distances(store) : IslandProtocol.distances(matrix);
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    private static int[][] checkSquare(int[][] matrix) {
+        for (int[] row : matrix) {
+            if (row.length != matrix.length) {
+                throw new IllegalArgumentException("The distance matrix is not square");
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Accepts workers on the given address and coordinates them until the run ends.
+     *
+     * @param address The address to listen on.
+     * @return The best tour any island found (cities numbered from 0), or null if no worker reported a tour.
+     * @throws IOException If the server channel cannot be opened.
+     */
+    public SolverResult run(InetSocketAddress address) throws IOException {
+        try (Selector selector = Selector.open(); ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(address);
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+            System.out.println("Waiting for workers on " + server.getLocalAddress());
+
+            while (!isFinished()) {
+                selector.select(SELECT_MILLIS);
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept(server, selector);
+                        continue;
+                    }
+                    Worker worker = (Worker) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            read(worker);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            flush(worker);
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        drop(worker, e.getMessage() == null ? e.toString() : e.getMessage());
+                    }
+                }
+                selector.selectedKeys().clear();
+
+                // Workers stop on their own time limit; STOP covers clocks that run slow
+                if (!stopSent && deadlineNanos != 0 && System.nanoTime() - deadlineNanos > 0) {
+                    stopSent = true;
+                    for (Worker worker : new ArrayList<>(workers.values())) {
+                        if (worker.joined) {
+                            send(worker, IslandProtocol.stop());
+                        }
+                    }
+                }
+            }
+
+            // Workers that did not finish in time are told to stop and dropped
+            for (Worker worker : new ArrayList<>(workers.values())) {
+                drop(worker, "no final tour within the grace period");
+            }
+        }
+        if (bestTour == null) {
+            return null;
+        }
+        int[] tour = new int[bestTour.length];
+        for (int i = 0; i < tour.length; i++) {
+            tour[i] = bestTour[i] - 1;
+        }
+        return new SolverResult("Islands", tour, bestLength, false, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Starts worker JVMs on this host, with the same Java and class path, to test the island model on one machine.
+     *
+     * @param count The number of workers.
+     * @param port The port of the coordinator.
+     * @return The worker processes; they exit on their own at the end of the run.
+     * @throws IOException If a process cannot be started.
+     */
+    public static List<Process> startLocalWorkers(int count, int port) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<Process> processes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    "IslandWorker", InetAddress.getLoopbackAddress().getHostAddress(), Integer.toString(port))
+                    .inheritIO()
+                    .start());
+        }
+        return processes;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: IslandCoordinator <distance matrix file> <port> [time limit in ms] [local workers] [bind address]");
+            return;
+        }
+        int port = Integer.parseInt(args[1]);
+        long timeLimitMillis = args.length > 2 ? Long.parseLong(args[2]) : 5000;
+        int localWorkers = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        InetAddress bindAddress;
+        try {
+            bindAddress = args.length > 4 ? InetAddress.getByName(args[4]) : InetAddress.getLoopbackAddress();
+        } catch (IOException e) {
+            System.out.println("Unknown bind address: " + e.getMessage());
+            return;
+        }
+        // Repeat the seeds sent to the workers with -Dtsp.seed=<seed>
+        System.out.println("Random seed: " + RandomProvider.global().getMasterSeed());
+        try {
+            // Only the coordinator keeps the distances, compacted if they are symmetric
+            IslandCoordinator coordinator = new IslandCoordinator(
+                    TSPInstance.parse(args[0], FileReader.readLines(args[0])).getDistances(), timeLimitMillis);
+            if (localWorkers > 0) {
+                // The server socket is bound before the workers connect: they retry until it is up
+                startLocalWorkers(localWorkers, port);
+            }
+            SolverResult best = coordinator.run(new InetSocketAddress(bindAddress, port));
+            System.out.println("Island best: " + best);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    // The run ends when no worker is left after one finished or the deadline passed, or at the latest after the grace period
+    private boolean isFinished() {
+        if (deadlineNanos == 0) {
+            return false;
+        }
+        long now = System.nanoTime();
+        if (workers.isEmpty() && (finishedWorkers > 0 || now - deadlineNanos > 0)) {
+            return true;
+        }
+        return now - deadlineNanos > GRACE_MILLIS * 1_000_000;
+    }
+
+    private void accept(ServerSocketChannel server, Selector selector) throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        Worker worker = new Worker(nextWorkerId++, channel);
+        workers.put(channel, worker);
+        worker.key = channel.register(selector, SelectionKey.OP_READ, worker);
+    }
+
+    private void read(Worker worker) throws IOException {
+        if (worker.channel.read(worker.in) < 0) {
+            drop(worker, "disconnected");
+            return;
+        }
+        ByteBuffer frame;
+        while (workers.containsKey(worker.channel) && (frame = IslandProtocol.nextFrame(worker.in)) != null) {
+            handle(worker, frame);
+        }
+        // Grow the buffer for a frame larger than it
+        if (!worker.in.hasRemaining()) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(2 * worker.in.capacity(), 4 + worker.in.getInt(0)));
+            worker.in.flip();
+            worker.in = larger.put(worker.in);
+        }
+    }
+
+    private void handle(Worker worker, ByteBuffer frame) throws IOException {
+        byte type = frame.get();
+        if (type == IslandProtocol.HELLO) {
+            int version = frame.getInt();
+            if (version != IslandProtocol.VERSION) {
+                drop(worker, "protocol version " + version + ", expected " + IslandProtocol.VERSION);
+                return;
+            }
+            long now = System.nanoTime();
+            if (deadlineNanos == 0) {
+                startNanos = now;
+                deadlineNanos = now + timeLimitMillis * 1_000_000;
+            }
+            // A time limit of 0 would mean no limit to the worker, and STOP has already gone out, so a late joiner is turned away
+            long remainingMillis = (deadlineNanos - now) / 1_000_000;
+            if (remainingMillis <= 0) {
+                drop(worker, "joined after the deadline");
+                return;
+            }
+            worker.joined = true;
+            long seed = RandomProvider.global().stream(worker.id).nextLong();
+            send(worker, store != null
+                    ? IslandProtocol.job(worker.id, seed, remainingMillis, POPULATION_SIZE, MIGRATION_MILLIS, cities,
+                            IslandProtocol.TRIANGLE, store.width(), store.getOffset(), store.getDiagonal())
+                    : IslandProtocol.job(worker.id, seed, remainingMillis, POPULATION_SIZE, MIGRATION_MILLIS, cities,
+                            IslandProtocol.MATRIX, 4, 0, 0));
+            // The frames are shared by all workers; each gets its own position
+            for (ByteBuffer distanceFrame : distanceFrames) {
+                send(worker, distanceFrame.duplicate());
+            }
+            // A late joiner starts from the global best
+            if (bestTour != null) {
+                send(worker, IslandProtocol.tour(IslandProtocol.TOUR, bestLength, bestTour));
+            }
+            System.out.println("Worker " + worker.id + " joined from " + worker.channel.getRemoteAddress()
+                    + " with " + remainingMillis + " ms left, " + workers.size() + " connected");
+        } else if (!worker.joined) {
+            drop(worker, "message " + type + " before HELLO");
+        } else if (type == IslandProtocol.TOUR || type == IslandProtocol.DONE) {
+            int length = IslandProtocol.tourLength(frame);
+            int[] tour = IslandProtocol.readTour(frame);
+            if (!IslandProtocol.isPermutation(tour, cities) || length != tourLength(tour)) {
+                drop(worker, "invalid tour");
+                return;
+            }
+            if (length < bestLength) {
+                bestLength = length;
+                bestTour = tour;
+                System.out.println("Global best " + length + " from worker " + worker.id);
+                for (Worker other : new ArrayList<>(workers.values())) {
+                    if (other != worker && other.joined) {
+                        send(other, IslandProtocol.tour(IslandProtocol.TOUR, length, tour));
+                    }
+                }
+            }
+            if (type == IslandProtocol.DONE) {
+                finishedWorkers++;
+                close(worker);
+                System.out.println("Worker " + worker.id + " finished with " + length + ", " + workers.size() + " connected");
+            }
+        } else {
+            drop(worker, "unexpected message " + type);
+        }
+    }
+
+    // Length of a tour received from a worker, recomputed so a faulty worker cannot claim a shorter one
+    private int tourLength(int[] tour) {
+        int length = 0;
+        for (int i = 0; i < tour.length; i++) {
+            int from = tour[i] - 1, to = tour[(i + 1) % tour.length] - 1;
+            length += store != null ? store.get(from, to) : matrix[from][to];
+        }
+        return length;
+    }
+
+    private void send(Worker worker, ByteBuffer frame) {
+        worker.out.add(frame);
+        try {
+            flush(worker);
+        } catch (IOException e) {
+            drop(worker, e.getMessage());
+        }
+    }
+
+    // Write as much of the queue as the socket takes and wait for OP_WRITE for the rest
+    private void flush(Worker worker) throws IOException {
+        ByteBuffer frame;
+        while ((frame = worker.out.peek()) != null) {
+            worker.channel.write(frame);
+            if (frame.hasRemaining()) {
+                break;
+            }
+            worker.out.poll();
+        }
+        if (worker.key.isValid()) {
+            worker.key.interestOps(worker.out.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    private void drop(Worker worker, String reason) {
+        if (workers.containsKey(worker.channel)) {
+            System.out.println("Dropped worker " + worker.id + ": " + reason);
+            close(worker);
+        }
+    }
+
+    private void close(Worker worker) {
+        workers.remove(worker.channel);
+        try {
+            worker.channel.close();
+        } catch (IOException e) {
+            // already closed
+        }
+    }
+}
@@ -0,0 +1,272 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * IslandProtocol is the binary protocol between {@link IslandCoordinator} and {@link IslandWorker}.
+ * Every message is a frame: an int with the number of bytes that follow, a type byte, then the payload (big-endian).
+ * <ul>
+ * <li>HELLO (worker): int protocol version.</li>
+ * <li>JOB (coordinator): int worker id, long seed, long time limit in ms, int population size, int migration interval in ms,
+ * int cities, byte layout, int width, int offset, int diagonal. DISTANCES frames with the distances follow.</li>
+ * <li>DISTANCES (coordinator): the next stored distances, each width bytes. A symmetric instance is sent as the upper
+ * triangle of a {@link DistanceStore} in row order (layout TRIANGLE, unsigned values relative to the offset), any other
+ * as the full matrix row by row (layout MATRIX, width 4, offset 0). The matrix is split into frames of at most
+ * {@link #CHUNK_BYTES}, so the size of an instance is not limited by the size of a frame.</li>
+ * <li>TOUR (both): int length, int cities, then the tour (cities numbered from 1). Workers send their best tour when it improves,
+ * the coordinator sends the global best to the other workers as a migrant.</li>
+ * <li>DONE (worker): the final best tour, like TOUR; the worker closes the connection afterwards.</li>
+ * <li>STOP (coordinator): no payload; the worker stops at the end of its current iteration and sends DONE.</li>
+ * </ul>
+ */
+final class IslandProtocol {
+    static final int VERSION = 2;
+
+    static final byte HELLO = 0, JOB = 1, TOUR = 2, DONE = 3, STOP = 4, DISTANCES = 5;
+
+    /** Layouts of the distances of a JOB. */
+    static final byte MATRIX = 0, TRIANGLE = 1;
+
+    /** Upper bound on the distance bytes in one DISTANCES frame. */
+    static final int CHUNK_BYTES = 1 << 22;
+
+    /** Upper bound on the size of a frame, to reject garbage before allocating for it. */
+    static final int MAX_FRAME_BYTES = 1 << 30;
+
+    private IslandProtocol() {
+    }
+
+    static ByteBuffer hello() {
+        ByteBuffer frame = start(HELLO, 4);
+        frame.putInt(VERSION);
+        return frame.flip();
+    }
+
+    static ByteBuffer job(int workerId, long seed, long timeLimitMillis, int populationSize, int migrationMillis, int cities,
+            byte layout, int width, int offset, int diagonal) {
+        ByteBuffer frame = start(JOB, 4 + 8 + 8 + 4 + 4 + 4 + 1 + 4 + 4 + 4);
+        frame.putInt(workerId).putLong(seed).putLong(timeLimitMillis).putInt(populationSize).putInt(migrationMillis).putInt(cities);
+        frame.put(layout).putInt(width).putInt(offset).putInt(diagonal);
+        return frame.flip();
+    }
+
+    /**
+     * @return The DISTANCES frames of a symmetric instance (layout TRIANGLE), read-only; send a duplicate of each.
+     */
+    static List<ByteBuffer> distances(DistanceStore store) {
+        List<ByteBuffer> frames = new ArrayList<>();
+        int perFrame = CHUNK_BYTES / store.width();
+        for (int from = 0; from < store.pairs(); from += perFrame) {
+            int count = Math.min(perFrame, store.pairs() - from);
+            ByteBuffer frame = start(DISTANCES, (long) count * store.width());
+            store.writeCells(frame, from, count);
+            frames.add(frame.flip().asReadOnlyBuffer());
+        }
+        return frames;
+    }
+
+    /**
+     * @return The DISTANCES frames of any square matrix (layout MATRIX), read-only; send a duplicate of each.
+     */
+    static List<ByteBuffer> distances(int[][] matrix) {
+        List<ByteBuffer> frames = new ArrayList<>();
+        int n = matrix.length;
+        long values = (long) n * n;
+        int perFrame = CHUNK_BYTES / 4;
+        for (long from = 0; from < values; from += perFrame) {
+            int count = (int) Math.min(perFrame, values - from);
+            ByteBuffer frame = start(DISTANCES, 4L * count);
+            for (long k = from; k < from + count; k++) {
+                frame.putInt(matrix[(int) (k / n)][(int) (k % n)]);
+            }
+            frames.add(frame.flip().asReadOnlyBuffer());
+        }
+        return frames;
+    }
+
+    /**
+     * Reads the DISTANCES frames of a TRIANGLE job from a blocking channel.
+     *
+     * @throws IOException If the channel fails or closes, or another message arrives before all distances.
+     */
+    static DistanceStore readStore(SocketChannel channel, int cities, int diagonal, int offset, int width) throws IOException {
+        DistanceStore store = DistanceStore.ofWidth(cities, diagonal, offset, width);
+        for (int from = 0; from < store.pairs(); ) {
+            ByteBuffer frame = readDistances(channel, width, store.pairs() - from);
+            int count = frame.remaining() / width;
+            store.readCells(frame, from, count);
+            from += count;
+        }
+        return store;
+    }
+
+    /**
+     * Reads the DISTANCES frames of a MATRIX job from a blocking channel.
+     *
+     * @throws IOException If the channel fails or closes, or another message arrives before all distances.
+     */
+    static int[][] readMatrix(SocketChannel channel, int cities) throws IOException {
+        int[][] matrix = new int[cities][cities];
+        long values = (long) cities * cities;
+        for (long k = 0; k < values; ) {
+            ByteBuffer frame = readDistances(channel, 4, values - k);
+            while (frame.hasRemaining()) {
+                matrix[(int) (k / cities)][(int) (k % cities)] = frame.getInt();
+                k++;
+            }
+        }
+        return matrix;
+    }
+
+    /*Read the next DISTANCES frame, positioned at its first value, and check it holds whole values and no more than expected*/ 
+    private static ByteBuffer readDistances(SocketChannel channel, int width, long expected) throws IOException {
+        ByteBuffer frame = readFrame(channel);
+        if (frame == null) {
+            throw new EOFException("Connection closed before all distances arrived");
+        }
+        byte type = frame.get();
+        if (type != DISTANCES) {
+            throw new IOException("Message " + type + " before all distances arrived");
+        }
+        if (frame.remaining() % width != 0 || frame.remaining() / width > expected || !frame.hasRemaining()) {
+            throw new IOException("DISTANCES frame of " + frame.remaining() + " bytes, expected at most " + expected + " values of " + width);
+        }
+        return frame;
+    }
+
+    /**
+     * @param type TOUR or DONE.
+     * @param length The length of the tour.
+     * @param tour The tour, cities numbered from 1.
+     */
+    static ByteBuffer tour(byte type, int length, int[] tour) {
+        ByteBuffer frame = start(type, 4 + 4 + 4L * tour.length);
+        frame.putInt(length).putInt(tour.length);
+        frame.asIntBuffer().put(tour);
+        frame.position(frame.position() + 4 * tour.length);
+        return frame.flip();
+    }
+
+    static ByteBuffer stop() {
+        return start(STOP, 0).flip();
+    }
+
+    /*Allocate a frame and write its header*/ 
+    private static ByteBuffer start(byte type, long payloadBytes) {
+        if (payloadBytes + 1 > MAX_FRAME_BYTES) {
+            throw new IllegalArgumentException("Frame of " + payloadBytes + " bytes exceeds " + MAX_FRAME_BYTES);
+        }
+        ByteBuffer frame = ByteBuffer.allocate(4 + 1 + (int) payloadBytes);
+        return frame.putInt(1 + (int) payloadBytes).put(type);
+    }
+
+    /**
+     * Reads the tour of a TOUR or DONE frame; the buffer is positioned after the type byte.
+     *
+     * @return The tour, cities numbered from 1; its length is read with {@link #tourLength(ByteBuffer)} first.
+     */
+    static int[] readTour(ByteBuffer frame) {
+        int n = frame.getInt();
+        if (n < 0 || n > frame.remaining() / 4) {
+            throw new IllegalArgumentException("Tour of " + n + " cities in a frame of " + frame.remaining() + " bytes");
+        }
+        int[] tour = new int[n];
+        frame.asIntBuffer().get(tour);
+        frame.position(frame.position() + 4 * n);
+        return tour;
+    }
+
+    static int tourLength(ByteBuffer frame) {
+        return frame.getInt();
+    }
+
+    /**
+     * Checks that a tour received from the network visits each of the cities exactly once.
+     */
+    static boolean isPermutation(int[] tour, int cities) {
+        if (tour.length != cities) {
+            return false;
+        }
+        boolean[] seen = new boolean[cities + 1];
+        for (int city : tour) {
+            if (city < 1 || city > cities || seen[city]) {
+                return false;
+            }
+            seen[city] = true;
+        }
+        return true;
+    }
+
+    /**
+     * Takes the next complete frame out of a buffer that is being filled from a non-blocking channel.
+     *
+     * @param in The receive buffer, in write mode; it is compacted when a frame is taken out.
+     * @return The frame positioned at its type byte, or null if no complete frame has arrived yet.
+     * @throws IOException If the frame header announces an invalid size.
+     */
+    static ByteBuffer nextFrame(ByteBuffer in) throws IOException {
+        if (in.position() < 4) {
+            return null;
+        }
+        int size = in.getInt(0);
+        checkSize(size);
+        if (in.position() < 4 + size) {
+            return null;
+        }
+        in.flip();
+        in.position(4);
+        ByteBuffer frame = ByteBuffer.allocate(size);
+        int limit = in.limit();
+        in.limit(4 + size);
+        frame.put(in).flip();
+        in.limit(limit);
+        in.compact();
+        return frame;
+    }
+
+    /**
+     * Reads one frame from a blocking channel.
+     *
+     * @return The frame positioned at its type byte, or null if the channel was closed between frames.
+     * @throws IOException If the channel fails, is closed within a frame, or the header is invalid.
+     */
+    static ByteBuffer readFrame(SocketChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        if (!readFully(channel, header, true)) {
+            return null;
+        }
+        int size = header.flip().getInt();
+        checkSize(size);
+        ByteBuffer frame = ByteBuffer.allocate(size);
+        readFully(channel, frame, false);
+        return frame.flip();
+    }
+
+    static void writeFully(SocketChannel channel, ByteBuffer frame) throws IOException {
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    /*Fill the buffer; return false on a clean end of stream before the first byte if that is allowed*/ 
+    private static boolean readFully(SocketChannel channel, ByteBuffer buffer, boolean endAllowed) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (endAllowed && buffer.position() == 0) {
+                    return false;
+                }
+                throw new EOFException("Connection closed within a frame");
+            }
+        }
+        return true;
+    }
+
+    private static void checkSize(int size) throws IOException {
+        if (size < 1 || size > MAX_FRAME_BYTES) {
+            throw new IOException("Invalid frame size " + size);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * IslandWorker is one island of the distributed island model: it receives the instance from an {@link IslandCoordinator},
+ * runs a steady-state GA on it, sends its best tour to the coordinator whenever it improves and takes in the global best
+ * as a migrant. If the coordinator goes away the worker finishes its run alone and prints its result.
+ */
+public class IslandWorker {
+    // How long to keep trying to reach the coordinator, e.g. while it starts
+    private static final long CONNECT_TIMEOUT_MILLIS = 10_000;
+    private static final long CONNECT_RETRY_MILLIS = 100;
+
+    private final InetSocketAddress coordinator;
+    private volatile boolean connected;
+
+    public IslandWorker(InetSocketAddress coordinator) {
+        this.coordinator = coordinator;
+    }
+
+    /**
+     * Joins the coordinator, runs the island and hands in the final tour.
+     *
+     * @return The best tour of this island (cities numbered from 0), or null if the coordinator sent no job or no time.
+     * @throws IOException If the coordinator cannot be reached or the job cannot be read.
+     * @throws InterruptedException If the thread is interrupted while waiting for the island.
+     */
+    public SolverResult run() throws IOException, InterruptedException {
+        try (SocketChannel channel = connect()) {
+            IslandProtocol.writeFully(channel, IslandProtocol.hello());
+            ByteBuffer job = IslandProtocol.readFrame(channel);
+            if (job == null || job.get() != IslandProtocol.JOB) {
+                return null;
+            }
+            int workerId = job.getInt();
+            long seed = job.getLong();
+            long timeLimitMillis = job.getLong();
+            int populationSize = job.getInt();
+            int migrationMillis = job.getInt();
+            int n = job.getInt();
+            byte layout = job.get();
+            int width = job.getInt();
+            int offset = job.getInt();
+            int diagonal = job.getInt();
+            // A symmetric instance stays in its compact store; only other instances are held as a full matrix
+            SolverConfig config = SolverConfig.defaults();
+            TSPGeneticAlgorithm tspGeneticAlgorithm = layout == IslandProtocol.TRIANGLE
+                    ? new TSPGeneticAlgorithm(config.getCrossoverProbability(), config.getMutationProbability(),
+                            IslandProtocol.readStore(channel, n, diagonal, offset, width))
+                    : new TSPGeneticAlgorithm(config, IslandProtocol.readMatrix(channel, n));
+            // No time left means stop now; TerminationCriteria would read a limit of 0 as no limit at all
+            if (timeLimitMillis <= 0) {
+                System.out.println("Island " + workerId + " got no time left");
+                return null;
+            }
+            connected = true;
+
+            // Each island draws from its own stream of the seed the coordinator handed out
+            tspGeneticAlgorithm.setRandom(new RandomProvider(seed).newStream());
+            TSPSolver solver = new TSPSolver(tspGeneticAlgorithm);
+            solver.setVerbose(false);
+
+            Thread island = new Thread(() -> solver.solveSteadyState(TerminationCriteria.timeLimit(timeLimitMillis), populationSize, n),
+                    "island-" + workerId);
+            island.start();
+            Thread receiver = new Thread(() -> receive(channel, solver, n), "island-" + workerId + "-receiver");
+            receiver.setDaemon(true);
+            receiver.start();
+
+            // Report the best tour whenever it improved since the last report
+            double reported = Double.MAX_VALUE;
+            while (island.isAlive()) {
+                island.join(migrationMillis);
+                TourSnapshot best = solver.bestSoFar();
+                if (connected && best != null && best.getLength() < reported) {
+                    reported = best.getLength();
+                    send(channel, IslandProtocol.tour(IslandProtocol.TOUR, (int) best.getLength(), best.getTour()));
+                }
+            }
+
+            TourSnapshot best = solver.bestSoFar();
+            // The coordinator closes the connection after DONE; that is not a loss
+            if (connected) {
+                connected = false;
+                send(channel, IslandProtocol.tour(IslandProtocol.DONE, (int) best.getLength(), best.getTour()));
+            }
+            SolverResult result = SolverResult.fromSnapshot("Island " + workerId, best, 1, false);
+            System.out.println("Island " + workerId + " finished: " + result);
+            return result;
+        }
+    }
+
+    // Retry until the coordinator accepts, so workers can be started before it
+    private SocketChannel connect() throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + CONNECT_TIMEOUT_MILLIS * 1_000_000;
+        while (true) {
+            try {
+                return SocketChannel.open(coordinator);
+            } catch (ConnectException e) {
+                if (System.nanoTime() - deadline > 0) {
+                    throw e;
+                }
+                Thread.sleep(CONNECT_RETRY_MILLIS);
+            }
+        }
+    }
+
+    // Take in the migrants and STOP from the coordinator until it closes the connection
+    private void receive(SocketChannel channel, TSPSolver solver, int cities) {
+        try {
+            ByteBuffer frame;
+            while ((frame = IslandProtocol.readFrame(channel)) != null) {
+                byte type = frame.get();
+                if (type == IslandProtocol.TOUR) {
+                    IslandProtocol.tourLength(frame);
+                    int[] tour = IslandProtocol.readTour(frame);
+                    if (IslandProtocol.isPermutation(tour, cities)) {
+                        List<Integer> migrant = new ArrayList<>(cities);
+                        for (int city : tour) {
+                            migrant.add(city);
+                        }
+                        solver.offerMigrant(migrant);
+                    }
+                } else if (type == IslandProtocol.STOP) {
+                    solver.cancel();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // handled below, like a closed connection
+        }
+        if (connected) {
+            connected = false;
+            System.out.println("Lost the coordinator, finishing alone");
+        }
+    }
+
+    private void send(SocketChannel channel, ByteBuffer frame) {
+        try {
+            IslandProtocol.writeFully(channel, frame);
+        } catch (IOException e) {
+            connected = false;
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: IslandWorker <coordinator host> <port>");
+            return;
+        }
+        try {
+            new IslandWorker(new InetSocketAddress(args[0], Integer.parseInt(args[1]))).run();
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,302 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * ParameterTuner searches for the {@link SolverConfig} that reaches a good tour fastest, for each instance size band.
+ * For every band it generates seeded random instances, computes a reference length for each one and races
+ * candidate configurations with successive halving: all surviving candidates run on all instances in parallel,
+ * the better half is kept and the time budget is doubled, until one candidate is left. In that final round the defaults
+ * run alongside the winner, so both are reported at the same, final budget.
+ *
+ * Candidates are scored by their mean time-to-target: the time until the solver's best tour is within
+ * {@link #TARGET_GAP} of the reference length. A run that misses the target within the budget is charged twice the budget.
+ * Everything is derived from one seed, so a tuning run can be repeated exactly (apart from timing noise).
+ */
+public class ParameterTuner {
+    // A tour within 5% of the reference length counts as good enough
+    static final double TARGET_GAP = 0.05;
+    // Instances this small get their reference length from brute force
+    private static final int MAX_EXACT_CITIES = 9;
+
+    private final String solverKind;
+    private final RandomProvider random;
+    private final ExecutorService pool;
+    private ResultCache resultCache;
+
+    /**
+     * The outcome of tuning one size band.
+     */
+    public static final class Result {
+        private final int cities;
+        private final SolverConfig best;
+        private final double bestMillis;
+        private final double defaultMillis;
+        private final long budgetMillis;
+
+        Result(int cities, SolverConfig best, double bestMillis, double defaultMillis, long budgetMillis) {
+            this.cities = cities;
+            this.best = best;
+            this.bestMillis = bestMillis;
+            this.defaultMillis = defaultMillis;
+            this.budgetMillis = budgetMillis;
+        }
+
+        public int getCities() {
+            return cities;
+        }
+
+        public SolverConfig getBest() {
+            return best;
+        }
+
+        /**
+         * @return The mean penalized time-to-target of the best configuration in the final round.
+         */
+        public double getBestMillis() {
+            return bestMillis;
+        }
+
+        /**
+         * @return The mean penalized time-to-target of the default configuration in the final round.
+         */
+        public double getDefaultMillis() {
+            return defaultMillis;
+        }
+
+        /**
+         * @return The time budget per run of the final round, in which both scores were measured.
+         */
+        public long getBudgetMillis() {
+            return budgetMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d cities: time-to-target %.1f ms (defaults %.1f ms) at a %d ms budget, with %s",
+                    cities, bestMillis, defaultMillis, budgetMillis, best);
+        }
+    }
+
+    /**
+     * @param solverKind The solver to tune, "GA" or "ACO".
+     * @param seed The master seed for instances, candidates and solver runs.
+     * @param pool The pool the runs are executed on.
+     */
+    public ParameterTuner(String solverKind, long seed, ExecutorService pool) {
+        if (!solverKind.equals("GA") && !solverKind.equals("ACO")) {
+            throw new IllegalArgumentException("Unknown solver: " + solverKind);
+        }
+        this.solverKind = solverKind;
+        this.random = new RandomProvider(seed);
+        this.pool = pool;
+    }
+
+    /**
+     * Takes the optima of small instances from the cache instead of recomputing them, and stores the new ones.
+     *
+     * @param resultCache The cache, or null to always run brute force.
+     */
+    public void setResultCache(ResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Tunes the solver for each size band.
+     *
+     * @param bandSizes The number of cities of the instances in each band.
+     * @param instancesPerBand The number of instances generated per band.
+     * @param candidates The number of configurations raced per band; the first one is always the defaults.
+     * @param baseBudgetMillis The time budget per run in the first round.
+     * @return The result of each band, in the order of the sizes.
+     * @throws InterruptedException If interrupted while waiting for the runs.
+     */
+    public List<Result> tune(int[] bandSizes, int instancesPerBand, int candidates, long baseBudgetMillis)
+            throws InterruptedException {
+        int rounds = 32 - Integer.numberOfLeadingZeros(Math.max(candidates - 1, 1));
+        long finalBudget = baseBudgetMillis << rounds;
+
+        List<Result> results = new ArrayList<>();
+        for (int band = 0; band < bandSizes.length; band++) {
+            int cities = bandSizes[band];
+            SplittableRandom bandRandom = random.stream(band);
+
+            List<TSPInstance> instances = new ArrayList<>();
+            for (int i = 0; i < instancesPerBand; i++) {
+                instances.add(TSPInstance.of("tuning-" + cities + "-" + i,
+                        new DataGenerator().generateDistances(cities, bandRandom.split())));
+            }
+            double[] targets = targets(instances, finalBudget, bandRandom.split());
+            List<SolverConfig> configs = sampleCandidates(candidates, bandRandom.split());
+            results.add(successiveHalving(cities, instances, targets, configs, baseBudgetMillis, bandRandom.nextLong()));
+        }
+        return results;
+    }
+
+    private Result successiveHalving(int cities, List<TSPInstance> instances, double[] targets,
+            List<SolverConfig> configs, long budgetMillis, long roundSeed) throws InterruptedException {
+        List<Integer> survivors = new ArrayList<>();
+        for (int c = 0; c < configs.size(); c++) {
+            survivors.add(c);
+        }
+        double[] scores = new double[configs.size()];
+
+        for (int round = 0; ; round++) {
+            // The defaults (candidate 0) also run in the final round, to be compared with the winner at the same budget
+            List<Integer> evaluated = new ArrayList<>(survivors);
+            if (survivors.size() == 1 && survivors.get(0) != 0) {
+                evaluated.add(0);
+            }
+            List<Callable<Double>> runs = new ArrayList<>();
+            for (int c : evaluated) {
+                for (int i = 0; i < instances.size(); i++) {
+                    SplittableRandom runRandom = new RandomProvider(roundSeed).stream(((long) round << 40) | ((long) c << 20) | i);
+                    TSPInstance instance = instances.get(i);
+                    double target = targets[i];
+                    long budget = budgetMillis;
+                    runs.add(() -> timeToTarget(configs.get(c), instance, target, budget, runRandom));
+                }
+            }
+            List<Future<Double>> times = pool.invokeAll(runs);
+
+            int run = 0;
+            for (int c : evaluated) {
+                double total = 0;
+                for (int i = 0; i < instances.size(); i++) {
+                    total += valueOf(times.get(run++));
+                }
+                scores[c] = total / instances.size();
+            }
+            if (survivors.size() == 1) {
+                int best = survivors.get(0);
+                return new Result(cities, configs.get(best), scores[best], scores[0], budgetMillis);
+            }
+            survivors.sort(Comparator.comparingDouble(c -> scores[c]));
+            survivors = new ArrayList<>(survivors.subList(0, (survivors.size() + 1) / 2));
+            budgetMillis *= 2;
+        }
+    }
+
+    private static double valueOf(Future<Double> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tuning run failed", e.getCause());
+        }
+    }
+
+    // Penalized time in milliseconds until the best tour is within the target
+    private double timeToTarget(SolverConfig config, TSPInstance instance, double target, long budgetMillis,
+            SplittableRandom runRandom) {
+        Solver solver = newSolver(solverKind, config, instance, runRandom);
+        SolverResult result = solver.solve(TerminationCriteria.timeLimit(budgetMillis).withTargetLength(target));
+        if (result != null && result.getLength() <= target) {
+            return result.getElapsedNanos() / 1e6;
+        }
+        return 2.0 * budgetMillis;
+    }
+
+    static Solver newSolver(String solverKind, SolverConfig config, TSPInstance instance, SplittableRandom random) {
+        if (solverKind.equals("GA")) {
+            TSPGeneticAlgorithm tspGeneticAlgorithm = new TSPGeneticAlgorithm(config, instance.getDistances());
+            tspGeneticAlgorithm.setRandom(random);
+            return new GeneticSolver(tspGeneticAlgorithm, instance.cities(), instance.cities());
+        }
+        AntAlgo antAlgo = new AntAlgo(config);
+        antAlgo.setRandom(random);
+        antAlgo.setGraph(instance.getGraph());
+        return new AntSolver(antAlgo);
+    }
+
+    // Target lengths: the optimum for small instances, otherwise the best of long default GA and ACO runs
+    private double[] targets(List<TSPInstance> instances, long budgetMillis, SplittableRandom targetRandom)
+            throws InterruptedException {
+        List<Callable<Double>> references = new ArrayList<>();
+        for (TSPInstance instance : instances) {
+            if (instance.cities() <= MAX_EXACT_CITIES) {
+                references.add(() -> {
+                    BruteForce bruteForce = new BruteForce(instance.getDistances());
+                    bruteForce.setResultCache(resultCache);
+                    return new ExactSolver(bruteForce).solve(TerminationCriteria.iterations(0)).getLength();
+                });
+            } else {
+                for (String kind : new String[] {"GA", "ACO"}) {
+                    SplittableRandom referenceRandom = targetRandom.split();
+                    references.add(() -> newSolver(kind, SolverConfig.defaults(), instance, referenceRandom)
+                            .solve(TerminationCriteria.timeLimit(budgetMillis)).getLength());
+                }
+            }
+        }
+        List<Future<Double>> lengths = pool.invokeAll(references);
+
+        double[] targets = new double[instances.size()];
+        int next = 0;
+        for (int i = 0; i < instances.size(); i++) {
+            double reference = valueOf(lengths.get(next++));
+            if (instances.get(i).cities() > MAX_EXACT_CITIES) {
+                reference = Math.min(reference, valueOf(lengths.get(next++)));
+            }
+            targets[i] = reference * (1 + TARGET_GAP);
+        }
+        return targets;
+    }
+
+    // The defaults followed by configurations sampled uniformly from reasonable ranges
+    private List<SolverConfig> sampleCandidates(int count, SplittableRandom sampleRandom) {
+        List<SolverConfig> configs = new ArrayList<>();
+        configs.add(SolverConfig.defaults());
+        while (configs.size() < count) {
+            SolverConfig config = SolverConfig.defaults();
+            if (solverKind.equals("GA")) {
+                config = config
+                        .withCrossoverProbability(sampleRandom.nextDouble(0.5, 1.0))
+                        .withMutationProbability(sampleRandom.nextDouble(0.01, 0.5));
+            } else {
+                config = config
+                        .withAlpha(sampleRandom.nextDouble(0.5, 2.0))
+                        .withBeta(sampleRandom.nextDouble(1.0, 8.0))
+                        .withEvaporation(sampleRandom.nextDouble(0.1, 0.9))
+                        .withQ(sampleRandom.nextDouble(100, 1000))
+                        .withNumAntFactor(sampleRandom.nextDouble(0.3, 1.5))
+                        .withRandomSelectionProbability(sampleRandom.nextDouble(0.0, 0.05));
+            }
+            configs.add(config);
+        }
+        return configs;
+    }
+
+    public static void main(String[] args) {
+        String solverKind = args.length > 0 ? args[0] : "ACO";
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : RandomProvider.global().getMasterSeed();
+        int[] bandSizes = args.length > 2
+                ? Arrays.stream(args[2].split(",")).mapToInt(Integer::parseInt).toArray()
+                : new int[] {8, 20, 50};
+        System.out.println("Tuning " + solverKind + " with seed " + seed + " for sizes " + Arrays.toString(bandSizes));
+
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            ParameterTuner tuner = new ParameterTuner(solverKind, seed, pool);
+            tuner.setResultCache(ResultCache.openDefault());
+            for (Result result : tuner.tune(bandSizes, 3, 16, 25)) {
+                System.out.println(result);
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading the result cache: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,248 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * PopulationSeeder builds good initial tours with fast construction heuristics, so the genetic algorithm does not
+ * start from purely random permutations. It fills a configurable fraction of the initial population with
+ * randomized nearest-neighbor tours, randomized greedy-edge tours and, when city coordinates are known,
+ * Hilbert-curve orderings. The tours are built in parallel and use the GA numbering (cities numbered from 1).
+ */
+public class PopulationSeeder {
+    // Probability that nearest neighbor takes the second nearest city instead of the nearest
+    private static final double NEIGHBOR_NOISE = 0.1;
+    // Relative noise added to edge weights so that greedy edge produces different tours
+    private static final double EDGE_NOISE = 0.05;
+    // Resolution of the Hilbert curve grid (2^16 x 2^16)
+    private static final int HILBERT_ORDER = 16;
+
+    private final double fraction;
+    private double[][] coordinates;
+
+    /**
+     * @param fraction The fraction of the initial population built with heuristics, between 0 and 1.
+     */
+    public PopulationSeeder(double fraction) {
+        if (fraction < 0 || fraction > 1) {
+            throw new IllegalArgumentException("Seeding fraction must be between 0 and 1: " + fraction);
+        }
+        this.fraction = fraction;
+    }
+
+    /**
+     * Enables Hilbert-curve seeding for instances with known city positions.
+     *
+     * @param coordinates The x and y coordinate of each city, indexed like the rows of the distance matrix.
+     */
+    public void setCoordinates(double[][] coordinates) {
+        this.coordinates = coordinates;
+    }
+
+    public double getFraction() {
+        return fraction;
+    }
+
+    /**
+     * Builds distinct heuristic tours for the seeded part of a population.
+     *
+     * @param populationSize The size of the whole population.
+     * @param distanceMatrix The distances between cities.
+     * @param random The stream each heuristic tour's own stream is split from, so the result does not depend on threading.
+     * @return Up to fraction * populationSize distinct tours, cities numbered from 1.
+     */
+    public List<List<Integer>> seed(int populationSize, int[][] distanceMatrix, SplittableRandom random) {
+        int count = (int) Math.round(fraction * populationSize);
+        int n = distanceMatrix.length;
+        if (count == 0 || n < 3) {
+            return new ArrayList<>();
+        }
+        int heuristics = coordinates != null ? 3 : 2;
+        SplittableRandom[] streams = new SplittableRandom[count];
+        for (int i = 0; i < count; i++) {
+            streams[i] = random.split();
+        }
+
+        Set<List<Integer>> tours = IntStream.range(0, count).parallel()
+                .mapToObj(i -> {
+                    switch (i % heuristics) {
+                        case 0:
+                            return nearestNeighbor(distanceMatrix, streams[i]);
+                        case 1:
+                            return greedyEdge(distanceMatrix, i == 1 ? 0 : EDGE_NOISE, streams[i]);
+                        default:
+                            return hilbert(coordinates, streams[i]);
+                    }
+                })
+                .map(PopulationSeeder::toCities)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        return new ArrayList<>(tours);
+    }
+
+    /**
+     * Nearest neighbor from a random start city; with a small probability the second nearest city is taken instead.
+     */
+    static int[] nearestNeighbor(int[][] distanceMatrix, SplittableRandom random) {
+        int n = distanceMatrix.length;
+        int[] tour = new int[n];
+        boolean[] visited = new boolean[n];
+        tour[0] = random.nextInt(n);
+        visited[tour[0]] = true;
+
+        for (int step = 1; step < n; step++) {
+            int current = tour[step - 1];
+            int nearest = -1, second = -1;
+            for (int city = 0; city < n; city++) {
+                if (visited[city]) {
+                    continue;
+                }
+                if (nearest < 0 || distanceMatrix[current][city] < distanceMatrix[current][nearest]) {
+                    second = nearest;
+                    nearest = city;
+                } else if (second < 0 || distanceMatrix[current][city] < distanceMatrix[current][second]) {
+                    second = city;
+                }
+            }
+            int next = second >= 0 && random.nextDouble() < NEIGHBOR_NOISE ? second : nearest;
+            tour[step] = next;
+            visited[next] = true;
+        }
+        return tour;
+    }
+
+    /**
+     * Greedy edge matching: repeatedly add the shortest edge that keeps every city at degree two or less and does
+     * not close a cycle early, then join the two ends of the resulting path.
+     *
+     * @param noise The relative random perturbation of edge weights, 0 for the plain greedy tour.
+     */
+    static int[] greedyEdge(int[][] distanceMatrix, double noise, SplittableRandom random) {
+        int n = distanceMatrix.length;
+        int edgeCount = n * (n - 1) / 2;
+        long[] edges = new long[edgeCount];
+        double[] weights = new double[edgeCount];
+        Integer[] order = new Integer[edgeCount];
+        int e = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                edges[e] = ((long) i << 32) | j;
+                weights[e] = distanceMatrix[i][j] * (1 + noise * random.nextDouble());
+                order[e] = e;
+                e++;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(weights[a], weights[b]));
+
+        int[] degree = new int[n];
+        int[][] neighbors = new int[n][2];
+        int[] component = new int[n];
+        for (int i = 0; i < n; i++) {
+            component[i] = i;
+        }
+        int added = 0;
+        for (int k = 0; k < edgeCount && added < n - 1; k++) {
+            int i = (int) (edges[order[k]] >>> 32);
+            int j = (int) edges[order[k]];
+            if (degree[i] == 2 || degree[j] == 2) {
+                continue;
+            }
+            int rootI = find(component, i), rootJ = find(component, j);
+            if (rootI == rootJ) {
+                continue;
+            }
+            component[rootI] = rootJ;
+            neighbors[i][degree[i]++] = j;
+            neighbors[j][degree[j]++] = i;
+            added++;
+        }
+
+        // Walk the Hamiltonian path from one of its ends
+        int start = 0;
+        while (degree[start] != 1) {
+            start++;
+        }
+        int[] tour = new int[n];
+        int previous = -1, current = start;
+        for (int step = 0; step < n; step++) {
+            tour[step] = current;
+            int next = neighbors[current][0] != previous ? neighbors[current][0] : neighbors[current][1];
+            previous = current;
+            current = next;
+        }
+        return tour;
+    }
+
+    private static int find(int[] component, int city) {
+        while (component[city] != city) {
+            component[city] = component[component[city]];
+            city = component[city];
+        }
+        return city;
+    }
+
+    /**
+     * Orders the cities along a Hilbert curve over their bounding box, starting at a random position on the curve.
+     * Supports up to 2^20 cities.
+     */
+    static int[] hilbert(double[][] coordinates, SplittableRandom random) {
+        int n = coordinates.length;
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (double[] point : coordinates) {
+            minX = Math.min(minX, point[0]);
+            maxX = Math.max(maxX, point[0]);
+            minY = Math.min(minY, point[1]);
+            maxY = Math.max(maxY, point[1]);
+        }
+        double scale = ((1 << HILBERT_ORDER) - 1) / Math.max(Math.max(maxX - minX, maxY - minY), 1e-9);
+
+        long[] keys = new long[n];
+        for (int city = 0; city < n; city++) {
+            int x = (int) ((coordinates[city][0] - minX) * scale);
+            int y = (int) ((coordinates[city][1] - minY) * scale);
+            // Curve index in the high bits, city in the low bits, so sorting the keys sorts the cities
+            keys[city] = (hilbertIndex(x, y) << 20) | city;
+        }
+        Arrays.sort(keys);
+
+        int offset = random.nextInt(n);
+        int[] tour = new int[n];
+        for (int k = 0; k < n; k++) {
+            tour[k] = (int) (keys[(k + offset) % n] & ((1 << 20) - 1));
+        }
+        return tour;
+    }
+
+    // Distance of grid point (x, y) along the Hilbert curve of order HILBERT_ORDER
+    private static long hilbertIndex(int x, int y) {
+        int side = 1 << HILBERT_ORDER;
+        long index = 0;
+        for (int s = 1 << (HILBERT_ORDER - 1); s > 0; s >>= 1) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            index += (long) s * s * ((3 * rx) ^ ry);
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = side - 1 - x;
+                    y = side - 1 - y;
+                }
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return index;
+    }
+
+    // Convert a tour of matrix indices into GA city numbers
+    private static List<Integer> toCities(int[] tour) {
+        List<Integer> cities = new ArrayList<>(tour.length);
+        for (int city : tour) {
+            cities.add(city + 1);
+        }
+        return cities;
+    }
+}
@@ -0,0 +1,223 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * PortfolioRunner races several solvers concurrently on the same instance and returns the best tour any of them finds.
+ * The incumbent (best result so far) is shared across the race: it is updated from the solvers' results and
+ * from polling their {@link Solver#bestSoFar()} while they run.
+ * The race ends when a solver proves optimality (or reaches the lower bound, if one is set), when the time limit of the criteria is reached, when the target
+ * length is reached or when every solver has finished; any solver still running is then cancelled.
+ */
+public class PortfolioRunner {
+    // How often the incumbent is refreshed from the running solvers
+    private static final long POLL_INTERVAL_MILLIS = 10;
+    // How long to wait for cancelled solvers to hand in their final results
+    private static final long CANCEL_GRACE_MILLIS = 1000;
+    // Brute force is only worth a thread on instances it can finish
+    private static final int MAX_EXACT_CITIES = 11;
+    // Part of the GA's initial population built with construction heuristics
+    private static final double SEEDED_FRACTION = 0.25;
+
+    private final List<Solver> solvers;
+    private final AtomicReference<SolverResult> incumbent = new AtomicReference<>();
+    private HeldKarpBound lowerBound;
+
+    public PortfolioRunner(List<Solver> solvers) {
+        this.solvers = new ArrayList<>(solvers);
+    }
+
+    /**
+     * Lets the race end as soon as the incumbent reaches the lower bound, which proves it optimal.
+     * The bound is started in the background at the beginning of each race and stopped at its end.
+     *
+     * @param lowerBound The lower bound for the instance being raced.
+     */
+    public void setLowerBound(HeldKarpBound lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+
+    /**
+     * @return The best result found so far in the current or last race, or null if none.
+     */
+    public SolverResult incumbent() {
+        return incumbent.get();
+    }
+
+    /**
+     * Runs all solvers concurrently until the race ends.
+     *
+     * @param criteria The termination criteria, passed to every solver and also enforced by the runner.
+     * @return The best result found, or null if no solver found a tour.
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     */
+    public SolverResult race(TerminationCriteria criteria) throws InterruptedException {
+        incumbent.set(null);
+        ExecutorService pool = Executors.newFixedThreadPool(solvers.size());
+        ExecutorCompletionService<SolverResult> completion = new ExecutorCompletionService<>(pool);
+        long startNanos = System.nanoTime();
+        long timeLimitNanos = criteria.getTimeLimitNanos();
+        int running = 0;
+        if (lowerBound != null && !lowerBound.isFinished()) {
+            lowerBound.startInBackground();
+        }
+
+        try {
+            for (Solver solver : solvers) {
+                // Withdraw the cancel of the last race here, not in the task: a cancel of this race may come before it starts
+                solver.reset();
+                completion.submit(() -> solver.solve(criteria));
+                running++;
+            }
+
+            while (running > 0) {
+                Future<SolverResult> done = completion.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (done != null) {
+                    running--;
+                    offer(resultOf(done));
+                }
+                for (Solver solver : solvers) {
+                    offer(solver.bestSoFar());
+                }
+
+                SolverResult best = incumbent.get();
+                if (best != null && lowerBound != null && best.getLength() <= lowerBound.getBound()) {
+                    offer(new SolverResult(best.getSolverName(), best.getTour(), best.getLength(), true, best.getElapsedNanos()));
+                    break;
+                }
+                if (best != null && best.isOptimal()) {
+                    break;
+                }
+                if (best != null && criteria.getTargetLength() > 0 && best.getLength() <= criteria.getTargetLength()) {
+                    break;
+                }
+                if (timeLimitNanos > 0 && System.nanoTime() - startNanos >= timeLimitNanos) {
+                    break;
+                }
+            }
+        } finally {
+            for (Solver solver : solvers) {
+                solver.cancel();
+            }
+            if (lowerBound != null) {
+                lowerBound.stop();
+            }
+            pool.shutdown();
+        }
+
+        // Collect the final results of the cancelled solvers, they may still improve the incumbent
+        long graceDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CANCEL_GRACE_MILLIS);
+        while (running > 0) {
+            long remaining = graceDeadline - System.nanoTime();
+            Future<SolverResult> done = remaining > 0 ? completion.poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (done == null) {
+                break;
+            }
+            running--;
+            offer(resultOf(done));
+        }
+        for (Solver solver : solvers) {
+            offer(solver.bestSoFar());
+        }
+        return incumbent.get();
+    }
+
+    // Replace the incumbent if the result is better
+    private void offer(SolverResult result) {
+        if (result != null) {
+            incumbent.accumulateAndGet(result, (current, offered) -> offered.isBetterThan(current) ? offered : current);
+        }
+    }
+
+    // A solver that failed simply drops out of the race
+    private static SolverResult resultOf(Future<SolverResult> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            System.err.println("Solver failed: " + e.getCause());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Builds the default portfolio for a distance matrix file: the genetic algorithm, the ant colony and,
+     * on small instances, brute force.
+     *
+     * @param fileName The CSV file containing the distance matrix.
+     * @return The solvers for the instance.
+     * @throws IOException If the file cannot be read.
+     */
+    public static List<Solver> defaultPortfolio(String fileName) throws IOException {
+        return defaultPortfolio(fileName, null);
+    }
+
+    /**
+     * Builds the default portfolio, with brute force taking known optima from the cache and storing new ones.
+     *
+     * @param fileName The CSV distance matrix.
+     * @param resultCache The cache of optimal results, or null.
+     * @return The solvers for the instance.
+     * @throws IOException If the file cannot be read.
+     */
+    public static List<Solver> defaultPortfolio(String fileName, ResultCache resultCache) throws IOException {
+        List<String> lines = FileReader.readLines(fileName);
+        int cities = lines.size();
+
+        List<Solver> solvers = new ArrayList<>();
+        TSPGeneticAlgorithm tspGeneticAlgorithm = new TSPGeneticAlgorithm(0.8, 0.1, lines);
+        tspGeneticAlgorithm.setSeeder(new PopulationSeeder(SEEDED_FRACTION));
+        solvers.add(new GeneticSolver(tspGeneticAlgorithm, cities, cities));
+
+        AntAlgo antAlgo = new AntAlgo();
+        antAlgo.readGraph(fileName);
+        solvers.add(new AntSolver(antAlgo));
+
+        if (cities <= MAX_EXACT_CITIES) {
+            BruteForce bruteForce = new BruteForce(lines);
+            bruteForce.setResultCache(resultCache);
+            solvers.add(new ExactSolver(bruteForce));
+        }
+        return solvers;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: PortfolioRunner <distance matrix file> [time limit in ms]");
+            return;
+        }
+        long timeLimitMillis = args.length > 1 ? Long.parseLong(args[1]) : 2000;
+        try {
+            ResultCache resultCache = ResultCache.openDefault();
+            PortfolioRunner runner = new PortfolioRunner(defaultPortfolio(args[0], resultCache));
+            int[][] distances = TSPInstance.parse(args[0], FileReader.readLines(args[0])).getDistances();
+            HeldKarpBound lowerBound = new HeldKarpBound(distances, 10_000);
+            runner.setLowerBound(lowerBound);
+            // A cached optimum ends the race as soon as a heuristic reaches it
+            SolverResult best = runner.race(resultCache.withTarget(TerminationCriteria.timeLimit(timeLimitMillis), distances));
+            if (best == null) {
+                System.out.println("No solver found a tour");
+                return;
+            }
+            if (best.isOptimal()) {
+                resultCache.put(distances, best);
+            }
+            System.out.println("Portfolio best: " + best);
+            System.out.println("Lower bound: " + lowerBound.getBound()
+                    + ", Gap: " + HeldKarpBound.gap(best.getLength(), lowerBound.getBound()));
+        } catch (IOException e) {
+            System.out.println("Error reading the file: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
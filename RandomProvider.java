@@ -0,0 +1,69 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RandomProvider hands out independent SplittableRandom streams derived from a single master seed.
+ * Each solver owns its own stream, so random decisions never contend on a shared generator, and a run can be
+ * reproduced by reusing the master seed: the n-th stream of a provider is always the same for the same seed.
+ *
+ * The global provider takes its seed from -Dtsp.seed, or from the clock if the property is not set;
+ * its seed is printed by the entry points so that any run can be repeated.
+ */
+public final class RandomProvider {
+    // Odd constant of the golden ratio, used to spread stream ids over the seed space
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private static volatile RandomProvider global = new RandomProvider(Long.getLong("tsp.seed", System.nanoTime()));
+
+    private final long masterSeed;
+    private final AtomicLong nextStream = new AtomicLong();
+
+    public RandomProvider(long masterSeed) {
+        this.masterSeed = masterSeed;
+    }
+
+    /**
+     * @return The provider used by solvers that are not given a stream explicitly.
+     */
+    public static RandomProvider global() {
+        return global;
+    }
+
+    /**
+     * Replaces the global provider, e.g. to repeat a run. Streams already handed out are not affected.
+     *
+     * @param masterSeed The new master seed.
+     */
+    public static void setGlobalSeed(long masterSeed) {
+        global = new RandomProvider(masterSeed);
+    }
+
+    public long getMasterSeed() {
+        return masterSeed;
+    }
+
+    /**
+     * Returns the next stream of this provider. Streams are numbered in the order they are requested,
+     * so creating solvers in the same order with the same seed reproduces the same random decisions.
+     *
+     * @return A new generator owned by the caller; it is not thread-safe.
+     */
+    public SplittableRandom newStream() {
+        return stream(nextStream.getAndIncrement());
+    }
+
+    /**
+     * @param streamId The number of the stream.
+     * @return The generator for the given stream number, independent of the order of other requests.
+     */
+    public SplittableRandom stream(long streamId) {
+        return new SplittableRandom(mix64(masterSeed + GOLDEN_GAMMA * (streamId + 1)));
+    }
+
+    // Stafford variant 13 of the 64-bit finalizer of MurmurHash3, as used by SplittableRandom
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,180 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * ResultCache keeps proven optimal tours on disk, so exact solvers do not recompute them and heuristics can stop
+ * as soon as they reach the known optimum. Entries are keyed by a fingerprint of the distance matrix itself
+ * (not of the file it came from), so the same instance is found under any file name or formatting.
+ * The store is a tab-separated file with one entry per line (fingerprint, length, solver, tour numbered from 0); it is
+ * only ever appended to, under a file lock, so several processes can share it. Set its path with {@code -Dtsp.cache}.
+ */
+public final class ResultCache {
+    // A JVM may hold only one lock on a file, so writes of all caches in this process take turns before locking it
+    private static final Object WRITE_LOCK = new Object();
+
+    private final Path file;
+    private final ConcurrentHashMap<String, SolverResult> entries = new ConcurrentHashMap<>();
+
+    private ResultCache(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Opens a cache, loading the entries already stored; lines that cannot be parsed are skipped.
+     *
+     * @param file The file of the store; it is created on the first put.
+     * @return The cache.
+     * @throws IOException If the file exists but cannot be read.
+     */
+    public static ResultCache open(Path file) throws IOException {
+        ResultCache cache = new ResultCache(file);
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split("\t");
+                    if (fields.length != 4) {
+                        continue;
+                    }
+                    try {
+                        int[] tour = Arrays.stream(fields[3].split(",")).mapToInt(Integer::parseInt).toArray();
+                        cache.entries.putIfAbsent(fields[0], new SolverResult(fields[2], tour, Double.parseDouble(fields[1]), true, 0));
+                    } catch (NumberFormatException e) {
+                        // skip the damaged entry
+                    }
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * @return The cache at the path of {@code -Dtsp.cache}, by default tsp-optima.tsv in the working directory.
+     * @throws IOException If the file exists but cannot be read.
+     */
+    public static ResultCache openDefault() throws IOException {
+        return open(Paths.get(System.getProperty("tsp.cache", "tsp-optima.tsv")));
+    }
+
+    /**
+     * @param distances The distance matrix.
+     * @return The lowercase hexadecimal SHA-256 hash of the dimensions and values of the matrix.
+     */
+    public static String fingerprint(int[][] distances) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer size = ByteBuffer.allocate(4);
+            digest.update(size.putInt(0, distances.length).array());
+            for (int[] values : distances) {
+                ByteBuffer bytes = ByteBuffer.allocate(4 + 4 * values.length);
+                bytes.putInt(values.length);
+                bytes.asIntBuffer().put(values);
+                digest.update(bytes.array());
+            }
+            StringBuilder hex = new StringBuilder(64);
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Looks up the optimal tour of an instance. The stored tour is checked against the matrix, so a damaged entry
+     * is treated as missing.
+     *
+     * @param distances The distance matrix.
+     * @return The optimal result (cities numbered from 0), or null if it is not cached.
+     */
+    public SolverResult get(int[][] distances) {
+        SolverResult result = entries.get(fingerprint(distances));
+        return result != null && tourLength(distances, result.getTour()) == result.getLength() ? result : null;
+    }
+
+    /**
+     * Adds the target length of a cached optimum to the criteria, so heuristics stop once they reach it.
+     *
+     * @return The criteria with the optimal length as target, or the criteria unchanged if the instance is not cached.
+     */
+    public TerminationCriteria withTarget(TerminationCriteria criteria, int[][] distances) {
+        SolverResult result = get(distances);
+        return result == null ? criteria : criteria.withTargetLength(result.getLength());
+    }
+
+    /**
+     * Stores a proven optimal result, unless the instance is already cached.
+     *
+     * @param distances The distance matrix.
+     * @param result The result (cities numbered from 0).
+     * @throws IllegalArgumentException If the result is not optimal or its length does not match the tour.
+     * @throws IOException If the store cannot be written.
+     */
+    public void put(int[][] distances, SolverResult result) throws IOException {
+        if (!result.isOptimal()) {
+            throw new IllegalArgumentException("Only optimal results are cached: " + result);
+        }
+        if (tourLength(distances, result.getTour()) != result.getLength()) {
+            throw new IllegalArgumentException("The tour does not have the length " + result.getLength());
+        }
+        String key = fingerprint(distances);
+        String tour = Arrays.stream(result.getTour()).mapToObj(Integer::toString).collect(Collectors.joining(","));
+        String line = key + "\t" + (long) result.getLength() + "\t" + result.getSolverName() + "\t" + tour + System.lineSeparator();
+        synchronized (WRITE_LOCK) {
+            if (entries.containsKey(key)) {
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                FileLock lock = channel.lock();
+                try {
+                    Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8);
+                    writer.write(line);
+                    writer.flush();
+                } finally {
+                    lock.release();
+                }
+            }
+            // Only an entry that reached the store is cached, so a failed write can be retried
+            entries.put(key, result);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /*Length of a closed tour, or -1 if it is not a tour of the matrix*/ 
+    private static double tourLength(int[][] distances, int[] tour) {
+        int n = distances.length;
+        if (tour.length != n) {
+            return -1;
+        }
+        boolean[] seen = new boolean[n];
+        long length = 0;
+        for (int i = 0; i < n; i++) {
+            if (tour[i] < 0 || tour[i] >= n || seen[tour[i]]) {
+                return -1;
+            }
+            seen[tour[i]] = true;
+            length += distances[tour[i]][tour[(i + 1) % n]];
+        }
+        return length;
+    }
+}
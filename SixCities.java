@@ -35,14 +35,19 @@ public class SixCities {
                 // Generate random probabilities for crossover and mutation
                 // double crossoverProbability = Math.random();
                 // double mutationProbability = Math.random();
-                double crossoverProbability = 0.8;
-                double mutationProbability = 0.1;
+                SolverConfig config = SolverConfig.defaults();
+                double crossoverProbability = config.getCrossoverProbability();
+                double mutationProbability = config.getMutationProbability();
                 System.out.println("crossoverProbability");
                 System.out.println(crossoverProbability);
 
                 System.out.println("mutationProbability");
                 System.out.println(mutationProbability);
 
+                // Print the seed so the run can be repeated with -Dtsp.seed=<seed>
+                System.out.println("Random seed: ");
+                System.out.println(RandomProvider.global().getMasterSeed());
+
 
 
                 // Create an instance of TSPGeneticAlgorithm with the generated parameters
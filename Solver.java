@@ -0,0 +1,38 @@
+/**
+ * Solver is the common interface of the TSP solvers (genetic algorithm, ant colony and brute force),
+ * so they can be run, polled and raced against each other in the same way.
+ * All tours exchanged through this interface number the cities from 0, in the row order of the distance matrix.
+ */
+public interface Solver {
+    /**
+     * @return A short name identifying the solver in results and logs.
+     */
+    String name();
+
+    /**
+     * Solves the problem until the termination criteria are met or the solver is cancelled.
+     *
+     * @param criteria The conditions under which the solver should stop.
+     * @return The best tour found, or null if the solver was cancelled before finding any tour.
+     */
+    SolverResult solve(TerminationCriteria criteria);
+
+    /**
+     * Returns the best tour found so far. Safe to call from another thread while {@link #solve} is running.
+     *
+     * @return The best tour found so far, or null if no tour has been found yet.
+     */
+    SolverResult bestSoFar();
+
+    /**
+     * Asks a running {@link #solve} to stop as soon as possible. Safe to call from another thread, also before
+     * the solve has started: the request stays in effect, so a later {@link #solve} returns at once, until {@link #reset}.
+     */
+    void cancel();
+
+    /**
+     * Withdraws an earlier {@link #cancel}, so the next {@link #solve} runs normally. Call it before the solve is handed
+     * to another thread, never from within it, or a cancel arriving before the solve starts would be lost.
+     */
+    void reset();
+}
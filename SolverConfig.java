@@ -0,0 +1,122 @@
+import java.util.Locale;
+
+/**
+ * SolverConfig holds the tunable parameters of the genetic algorithm and the ant colony.
+ * It is immutable; the with methods return a modified copy. {@link #defaults()} returns the values the solvers
+ * have always used (the GA probabilities of SixCities and the ACO constants of AntAlgo).
+ */
+public final class SolverConfig {
+    private final double crossoverProbability;
+    private final double mutationProbability;
+    private final double alpha;
+    private final double beta;
+    private final double evaporation;
+    private final double q;
+    private final double numAntFactor;
+    private final double randomSelectionProbability;
+
+    private SolverConfig(double crossoverProbability, double mutationProbability, double alpha, double beta,
+            double evaporation, double q, double numAntFactor, double randomSelectionProbability) {
+        this.crossoverProbability = crossoverProbability;
+        this.mutationProbability = mutationProbability;
+        this.alpha = alpha;
+        this.beta = beta;
+        this.evaporation = evaporation;
+        this.q = q;
+        this.numAntFactor = numAntFactor;
+        this.randomSelectionProbability = randomSelectionProbability;
+    }
+
+    public static SolverConfig defaults() {
+        return new SolverConfig(0.8, 0.1, 1, 5, 0.5, 500, 0.8, 0.01);
+    }
+
+    public SolverConfig withCrossoverProbability(double crossoverProbability) {
+        return new SolverConfig(crossoverProbability, mutationProbability, alpha, beta, evaporation, q, numAntFactor, randomSelectionProbability);
+    }
+
+    public SolverConfig withMutationProbability(double mutationProbability) {
+        return new SolverConfig(crossoverProbability, mutationProbability, alpha, beta, evaporation, q, numAntFactor, randomSelectionProbability);
+    }
+
+    /**
+     * @param alpha ACO trail preference.
+     */
+    public SolverConfig withAlpha(double alpha) {
+        return new SolverConfig(crossoverProbability, mutationProbability, alpha, beta, evaporation, q, numAntFactor, randomSelectionProbability);
+    }
+
+    /**
+     * @param beta ACO greedy preference.
+     */
+    public SolverConfig withBeta(double beta) {
+        return new SolverConfig(crossoverProbability, mutationProbability, alpha, beta, evaporation, q, numAntFactor, randomSelectionProbability);
+    }
+
+    /**
+     * @param evaporation ACO trail evaporation coefficient, the fraction of trail kept after each iteration.
+     */
+    public SolverConfig withEvaporation(double evaporation) {
+        return new SolverConfig(crossoverProbability, mutationProbability, alpha, beta, evaporation, q, numAntFactor, randomSelectionProbability);
+    }
+
+    /**
+     * @param q ACO new trail deposit coefficient.
+     */
+    public SolverConfig withQ(double q) {
+        return new SolverConfig(crossoverProbability, mutationProbability, alpha, beta, evaporation, q, numAntFactor, randomSelectionProbability);
+    }
+
+    /**
+     * @param numAntFactor ACO number of ants per town.
+     */
+    public SolverConfig withNumAntFactor(double numAntFactor) {
+        return new SolverConfig(crossoverProbability, mutationProbability, alpha, beta, evaporation, q, numAntFactor, randomSelectionProbability);
+    }
+
+    /**
+     * @param randomSelectionProbability ACO probability of choosing the next town purely at random.
+     */
+    public SolverConfig withRandomSelectionProbability(double randomSelectionProbability) {
+        return new SolverConfig(crossoverProbability, mutationProbability, alpha, beta, evaporation, q, numAntFactor, randomSelectionProbability);
+    }
+
+    public double getCrossoverProbability() {
+        return crossoverProbability;
+    }
+
+    public double getMutationProbability() {
+        return mutationProbability;
+    }
+
+    public double getAlpha() {
+        return alpha;
+    }
+
+    public double getBeta() {
+        return beta;
+    }
+
+    public double getEvaporation() {
+        return evaporation;
+    }
+
+    public double getQ() {
+        return q;
+    }
+
+    public double getNumAntFactor() {
+        return numAntFactor;
+    }
+
+    public double getRandomSelectionProbability() {
+        return randomSelectionProbability;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "SolverConfig{crossover=%.3f, mutation=%.3f, alpha=%.3f, beta=%.3f, evaporation=%.3f, Q=%.1f, numAntFactor=%.3f, pr=%.4f}",
+                crossoverProbability, mutationProbability, alpha, beta, evaporation, q, numAntFactor, randomSelectionProbability);
+    }
+}
@@ -0,0 +1,334 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * SolverMetrics collects per-phase timings of the solver hot loops: a count, total, maximum and log2 histogram of
+ * nanoTime durations per phase, plus generations, tour evaluations and bytes allocated per generation.
+ * There is one instance per kind of solver ("GA", "ACO"), shared by all solvers of that kind and safe to update
+ * from several solving threads at once.
+ *
+ * Metrics are off unless the JVM is started with -Dtsp.metrics=true. {@link #ENABLED} is a compile-time constant for
+ * the JIT, so the instrumentation in the solvers is removed entirely when it is false.
+ * When enabled, every instance is registered with JMX as tsp:type=SolverMetrics,name=&lt;solver&gt;, and if
+ * -Dtsp.metrics.dump=&lt;file&gt; is given, a snapshot is appended to that file every -Dtsp.metrics.intervalMs
+ * milliseconds (default 1000), as CSV rows if the file name ends with .csv and as JSON lines otherwise.
+ */
+public final class SolverMetrics implements SolverMetricsMXBean {
+    public static final boolean ENABLED = Boolean.getBoolean("tsp.metrics");
+
+    private static final int BUCKETS = 64;
+    private static final Map<String, SolverMetrics> REGISTRY = new ConcurrentHashMap<>();
+    private static final com.sun.management.ThreadMXBean THREADS = allocationBean();
+    private static ScheduledExecutorService dumper;
+
+    private final String solverName;
+    private final String[] phaseNames;
+    private final LongAdder[] counts;
+    private final LongAdder[] totals;
+    private final LongAccumulator[] maxima;
+    private final LongAdder[][] histograms;
+    private final LongAdder generations = new LongAdder();
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    private SolverMetrics(String solverName, String[] phaseNames) {
+        this.solverName = solverName;
+        this.phaseNames = phaseNames.clone();
+        this.counts = new LongAdder[phaseNames.length];
+        this.totals = new LongAdder[phaseNames.length];
+        this.maxima = new LongAccumulator[phaseNames.length];
+        this.histograms = new LongAdder[phaseNames.length][BUCKETS];
+        for (int p = 0; p < phaseNames.length; p++) {
+            counts[p] = new LongAdder();
+            totals[p] = new LongAdder();
+            maxima[p] = new LongAccumulator(Math::max, 0);
+            for (int b = 0; b < BUCKETS; b++) {
+                histograms[p][b] = new LongAdder();
+            }
+        }
+    }
+
+    /**
+     * Returns the shared metrics of a kind of solver, creating and exporting them on first use.
+     * Only call this when {@link #ENABLED} is true.
+     *
+     * @param solverName The kind of solver, e.g. "GA".
+     * @param phaseNames The names of the instrumented phases; phases are recorded by their index in this array.
+     * @return The metrics for the solver.
+     */
+    public static SolverMetrics forSolver(String solverName, String... phaseNames) {
+        return REGISTRY.computeIfAbsent(solverName, name -> {
+            SolverMetrics metrics = new SolverMetrics(name, phaseNames);
+            metrics.register();
+            startDumper();
+            return metrics;
+        });
+    }
+
+    private void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(this, new ObjectName("tsp:type=SolverMetrics,name=" + solverName));
+        } catch (JMException e) {
+            System.err.println("Could not register metrics for " + solverName + ": " + e.getMessage());
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) bean;
+            if (allocation.isThreadAllocatedMemorySupported() && allocation.isThreadAllocatedMemoryEnabled()) {
+                return allocation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The number of bytes allocated so far by the calling thread, or -1 if the JVM cannot measure it.
+     */
+    public static long allocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    /**
+     * Records one execution of a phase.
+     *
+     * @param phase The index of the phase.
+     * @param nanos The duration of the phase.
+     */
+    public void record(int phase, long nanos) {
+        counts[phase].increment();
+        totals[phase].add(nanos);
+        maxima[phase].accumulate(nanos);
+        histograms[phase][bucket(nanos)].increment();
+    }
+
+    /**
+     * Records the end of a generation.
+     *
+     * @param evaluatedTours The number of tours evaluated during the generation.
+     * @param bytes The bytes allocated during the generation, or a negative value if unknown.
+     */
+    public void endGeneration(long evaluatedTours, long bytes) {
+        generations.increment();
+        evaluations.add(evaluatedTours);
+        if (bytes > 0) {
+            allocatedBytes.add(bytes);
+        }
+    }
+
+    private static int bucket(long nanos) {
+        return nanos <= 0 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    // Upper bound of the histogram bucket containing the given quantile
+    private long quantile(int phase, double q) {
+        long total = counts[phase].sum();
+        if (total == 0) {
+            return 0;
+        }
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += histograms[phase][b].sum();
+            if (seen >= q * total) {
+                return b >= 62 ? Long.MAX_VALUE : (2L << b) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public String[] getPhaseNames() {
+        return phaseNames.clone();
+    }
+
+    @Override
+    public long[] getPhaseCounts() {
+        long[] values = new long[phaseNames.length];
+        for (int p = 0; p < values.length; p++) {
+            values[p] = counts[p].sum();
+        }
+        return values;
+    }
+
+    @Override
+    public long[] getPhaseTotalNanos() {
+        long[] values = new long[phaseNames.length];
+        for (int p = 0; p < values.length; p++) {
+            values[p] = totals[p].sum();
+        }
+        return values;
+    }
+
+    @Override
+    public long[] getPhaseMaxNanos() {
+        long[] values = new long[phaseNames.length];
+        for (int p = 0; p < values.length; p++) {
+            values[p] = maxima[p].get();
+        }
+        return values;
+    }
+
+    @Override
+    public long[] getPhaseMedianNanos() {
+        long[] values = new long[phaseNames.length];
+        for (int p = 0; p < values.length; p++) {
+            values[p] = quantile(p, 0.5);
+        }
+        return values;
+    }
+
+    @Override
+    public long[] getPhaseP99Nanos() {
+        long[] values = new long[phaseNames.length];
+        for (int p = 0; p < values.length; p++) {
+            values[p] = quantile(p, 0.99);
+        }
+        return values;
+    }
+
+    @Override
+    public long getGenerations() {
+        return generations.sum();
+    }
+
+    @Override
+    public long getEvaluations() {
+        return evaluations.sum();
+    }
+
+    @Override
+    public double getEvaluationsPerSecond() {
+        long nanos = 0;
+        for (LongAdder total : totals) {
+            nanos += total.sum();
+        }
+        return nanos > 0 ? evaluations.sum() * 1e9 / nanos : 0;
+    }
+
+    @Override
+    public long getBytesAllocatedPerGeneration() {
+        long count = generations.sum();
+        if (THREADS == null) {
+            return -1;
+        }
+        return count > 0 ? allocatedBytes.sum() / count : 0;
+    }
+
+    @Override
+    public void reset() {
+        for (int p = 0; p < phaseNames.length; p++) {
+            counts[p].reset();
+            totals[p].reset();
+            maxima[p].reset();
+            for (LongAdder bucket : histograms[p]) {
+                bucket.reset();
+            }
+        }
+        generations.reset();
+        evaluations.reset();
+        allocatedBytes.reset();
+    }
+
+    private static synchronized void startDumper() {
+        String file = System.getProperty("tsp.metrics.dump");
+        if (file == null || dumper != null) {
+            return;
+        }
+        long interval = Long.getLong("tsp.metrics.intervalMs", 1000);
+        Path path = Paths.get(file);
+        dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tsp-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> dump(path), interval, interval, TimeUnit.MILLISECONDS);
+        // Make sure the last interval is not lost when the JVM exits
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> dump(path)));
+    }
+
+    /**
+     * Appends a snapshot of all registered metrics to a file, as CSV rows or JSON lines depending on its extension.
+     *
+     * @param path The file to append to.
+     */
+    public static synchronized void dump(Path path) {
+        boolean csv = path.toString().endsWith(".csv");
+        long timestamp = System.currentTimeMillis();
+        try {
+            boolean header = csv && !Files.exists(path);
+            try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                if (header) {
+                    out.write("timestamp,solver,phase,count,totalNanos,maxNanos,medianNanos,p99Nanos,"
+                            + "generations,evaluations,evaluationsPerSecond,bytesPerGeneration");
+                    out.newLine();
+                }
+                for (SolverMetrics metrics : REGISTRY.values()) {
+                    out.write(csv ? metrics.toCsv(timestamp) : metrics.toJson(timestamp));
+                    out.newLine();
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not dump metrics: " + e.getMessage());
+        }
+    }
+
+    private String toCsv(long timestamp) {
+        long[] count = getPhaseCounts(), total = getPhaseTotalNanos(), max = getPhaseMaxNanos();
+        long[] median = getPhaseMedianNanos(), p99 = getPhaseP99Nanos();
+        StringBuilder rows = new StringBuilder();
+        for (int p = 0; p < phaseNames.length; p++) {
+            if (p > 0) {
+                rows.append(System.lineSeparator());
+            }
+            rows.append(timestamp).append(',').append(solverName).append(',').append(phaseNames[p])
+                    .append(',').append(count[p]).append(',').append(total[p]).append(',').append(max[p])
+                    .append(',').append(median[p]).append(',').append(p99[p])
+                    .append(',').append(getGenerations()).append(',').append(getEvaluations())
+                    .append(',').append(String.format(Locale.ROOT, "%.1f", getEvaluationsPerSecond()))
+                    .append(',').append(getBytesAllocatedPerGeneration());
+        }
+        return rows.toString();
+    }
+
+    private String toJson(long timestamp) {
+        long[] count = getPhaseCounts(), total = getPhaseTotalNanos(), max = getPhaseMaxNanos();
+        long[] median = getPhaseMedianNanos(), p99 = getPhaseP99Nanos();
+        StringBuilder json = new StringBuilder();
+        json.append("{\"timestamp\":").append(timestamp)
+                .append(",\"solver\":\"").append(solverName).append('"')
+                .append(",\"generations\":").append(getGenerations())
+                .append(",\"evaluations\":").append(getEvaluations())
+                .append(",\"evaluationsPerSecond\":").append(String.format(Locale.ROOT, "%.1f", getEvaluationsPerSecond()))
+                .append(",\"bytesPerGeneration\":").append(getBytesAllocatedPerGeneration())
+                .append(",\"phases\":{");
+        for (int p = 0; p < phaseNames.length; p++) {
+            json.append(p > 0 ? "," : "").append('"').append(phaseNames[p]).append("\":{")
+                    .append("\"count\":").append(count[p])
+                    .append(",\"totalNanos\":").append(total[p])
+                    .append(",\"maxNanos\":").append(max[p])
+                    .append(",\"medianNanos\":").append(median[p])
+                    .append(",\"p99Nanos\":").append(p99[p]).append('}');
+        }
+        return json.append("}}").toString();
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * SolverMetricsMXBean is the JMX view of {@link SolverMetrics}.
+ * The phase arrays are indexed like {@link #getPhaseNames()}.
+ */
+public interface SolverMetricsMXBean {
+    String[] getPhaseNames();
+
+    long[] getPhaseCounts();
+
+    long[] getPhaseTotalNanos();
+
+    long[] getPhaseMaxNanos();
+
+    /**
+     * @return The approximate median duration of each phase, from its log2 histogram.
+     */
+    long[] getPhaseMedianNanos();
+
+    /**
+     * @return The approximate 99th percentile duration of each phase, from its log2 histogram.
+     */
+    long[] getPhaseP99Nanos();
+
+    long getGenerations();
+
+    long getEvaluations();
+
+    /**
+     * @return Tour evaluations per second of time spent inside the instrumented phases.
+     */
+    double getEvaluationsPerSecond();
+
+    /**
+     * @return The average number of bytes allocated by the solving thread per generation, or -1 if the JVM cannot measure it.
+     */
+    long getBytesAllocatedPerGeneration();
+
+    void reset();
+}
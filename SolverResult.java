@@ -0,0 +1,90 @@
+import java.util.Arrays;
+
+/**
+ * SolverResult is the immutable result type shared by all {@link Solver} implementations.
+ * The tour numbers the cities from 0, regardless of the numbering used internally by the solver.
+ */
+public final class SolverResult {
+    private final String solverName;
+    private final int[] tour;
+    private final double length;
+    private final boolean optimal;
+    private final long elapsedNanos;
+
+    public SolverResult(String solverName, int[] tour, double length, boolean optimal, long elapsedNanos) {
+        this.solverName = solverName;
+        this.tour = tour.clone();
+        this.length = length;
+        this.optimal = optimal;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Converts a snapshot published by one of the solvers into a result numbered from 0.
+     *
+     * @param solverName The name of the solver that produced the snapshot.
+     * @param snapshot The snapshot, or null.
+     * @param firstCity The number the solver gives to the first city (1 for the GA and brute force, 0 for ACO).
+     * @param optimal Whether the tour is known to be optimal.
+     * @return The converted result, or null if the snapshot is null.
+     */
+    public static SolverResult fromSnapshot(String solverName, TourSnapshot snapshot, int firstCity, boolean optimal) {
+        if (snapshot == null) {
+            return null;
+        }
+        int[] tour = snapshot.getTour();
+        for (int i = 0; i < tour.length; i++) {
+            tour[i] -= firstCity;
+        }
+        return new SolverResult(solverName, tour, snapshot.getLength(), optimal, snapshot.getElapsedNanos());
+    }
+
+    public String getSolverName() {
+        return solverName;
+    }
+
+    /**
+     * @return A copy of the tour, cities numbered from 0.
+     */
+    public int[] getTour() {
+        return tour.clone();
+    }
+
+    public double getLength() {
+        return length;
+    }
+
+    /**
+     * @return True if the solver proved that no shorter tour exists.
+     */
+    public boolean isOptimal() {
+        return optimal;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Checks whether this result should replace another one as the best known result.
+     * A shorter tour is better; at equal length a proven optimum is better.
+     *
+     * @param other The other result, possibly null.
+     * @return True if this result is better than the other one.
+     */
+    public boolean isBetterThan(SolverResult other) {
+        if (other == null) {
+            return true;
+        }
+        if (length != other.length) {
+            return length < other.length;
+        }
+        return optimal && !other.optimal;
+    }
+
+    @Override
+    public String toString() {
+        return solverName + " - Tour: " + Arrays.toString(tour) + ", Length: " + length
+                + (optimal ? " (optimal)" : "") + ", Time: " + (elapsedNanos / 1_000_000L) + " ms";
+    }
+}
@@ -0,0 +1,172 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * SteadyStatePopulation is the population of the steady-state GA: a fixed number of slots, each holding a tour
+ * with its cached length and the position of every city in it. The worst slot is tracked with an
+ * {@link IndexedHeap}, so replacing it is O(log size) plus the O(cities) bookkeeping of the new tour.
+ * The city positions let a distance change be applied as a per-edge delta, touching only the tours that use the edge.
+ * The diversity of the population is tracked per replacement with a {@link DiversityTracker}.
+ * Tours use the GA numbering (cities numbered from 1).
+ */
+public class SteadyStatePopulation {
+    private final List<List<Integer>> population;
+    private final int[] fitnessValues;
+    private final int[][] positions;
+    private final Set<List<Integer>> members = new HashSet<>();
+    private final IndexedHeap worst;
+    private final DiversityTracker diversity;
+    private int best;
+
+    /**
+     * @param initial The initial tours; they must not be modified afterwards.
+     * @param tspGeneticAlgorithm The algorithm used to compute the initial lengths.
+     */
+    public SteadyStatePopulation(List<List<Integer>> initial, TSPGeneticAlgorithm tspGeneticAlgorithm) {
+        this.population = new ArrayList<>(initial);
+        this.positions = new int[population.size()][];
+        this.fitnessValues = tspGeneticAlgorithm.tourLengths(population);
+        this.diversity = new DiversityTracker(population.isEmpty() ? 0 : population.get(0).size());
+        for (int slot = 0; slot < population.size(); slot++) {
+            List<Integer> tour = population.get(slot);
+            positions[slot] = new int[tour.size()];
+            indexPositions(slot);
+            members.add(tour);
+            diversity.add(tour);
+        }
+        this.worst = new IndexedHeap(fitnessValues, true);
+        refreshBest();
+    }
+
+    public int size() {
+        return population.size();
+    }
+
+    public List<Integer> get(int slot) {
+        return population.get(slot);
+    }
+
+    /**
+     * @return The cached lengths, indexed by slot; callers must not modify them.
+     */
+    public int[] getFitnessValues() {
+        return fitnessValues;
+    }
+
+    public List<Integer> getBest() {
+        return population.get(best);
+    }
+
+    public int getBestLength() {
+        return fitnessValues[best];
+    }
+
+    public DiversityTracker getDiversity() {
+        return diversity;
+    }
+
+    /**
+     * Replaces the worst tour with the child if the child is shorter and not already in the population.
+     *
+     * @param child The new tour; it must not be modified afterwards.
+     * @param length The length of the child.
+     * @return True if the child was accepted.
+     */
+    public boolean offer(List<Integer> child, int length) {
+        int slot = worst.top();
+        if (length >= fitnessValues[slot] || members.contains(child)) {
+            return false;
+        }
+        replace(slot, child, length);
+        if (length < fitnessValues[best]) {
+            best = slot;
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the worst tours, except the best one, with immigrants regardless of their length, to restore diversity.
+     * Immigrants already in the population are skipped.
+     *
+     * @param immigrants The new tours; they must not be modified afterwards.
+     * @param lengths The length of each immigrant.
+     * @return The number of immigrants taken in.
+     */
+    public int injectImmigrants(List<List<Integer>> immigrants, int[] lengths) {
+        Integer[] slots = new Integer[fitnessValues.length];
+        for (int slot = 0; slot < slots.length; slot++) {
+            slots[slot] = slot;
+        }
+        Arrays.sort(slots, (a, b) -> Integer.compare(fitnessValues[b], fitnessValues[a]));
+        int injected = 0;
+        for (int i = 0, next = 0; i < immigrants.size() && next < slots.length; i++) {
+            if (members.contains(immigrants.get(i))) {
+                continue;
+            }
+            if (slots[next] == best) {
+                next++;
+            }
+            if (next < slots.length) {
+                replace(slots[next++], immigrants.get(i), lengths[i]);
+                injected++;
+            }
+        }
+        refreshBest();
+        return injected;
+    }
+
+    private void replace(int slot, List<Integer> tour, int length) {
+        diversity.remove(population.get(slot));
+        members.remove(population.get(slot));
+        population.set(slot, tour);
+        members.add(tour);
+        diversity.add(tour);
+        fitnessValues[slot] = length;
+        indexPositions(slot);
+        worst.update(slot);
+    }
+
+    /**
+     * Adjusts the cached length of every tour that travels the directed edge from -> to.
+     * Call {@link #refreshBest()} after the last delta of a batch.
+     *
+     * @param from The matrix index of the first city of the edge.
+     * @param to The matrix index of the second city of the edge.
+     * @param delta The new distance minus the old distance.
+     * @return The number of tours affected.
+     */
+    public int applyEdgeDelta(int from, int to, int delta) {
+        int affected = 0;
+        for (int slot = 0; slot < positions.length; slot++) {
+            int[] position = positions[slot];
+            if (position[to] == (position[from] + 1) % position.length) {
+                fitnessValues[slot] += delta;
+                worst.update(slot);
+                affected++;
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * Finds the shortest tour again, after its length may have changed.
+     */
+    public void refreshBest() {
+        best = 0;
+        for (int slot = 1; slot < fitnessValues.length; slot++) {
+            if (fitnessValues[slot] < fitnessValues[best]) {
+                best = slot;
+            }
+        }
+    }
+
+    private void indexPositions(int slot) {
+        List<Integer> tour = population.get(slot);
+        for (int i = 0; i < tour.size(); i++) {
+            positions[slot][tour.get(i) - 1] = i;
+        }
+    }
+}
@@ -2,8 +2,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
 import java.util.stream.Collectors;
 
 /*
@@ -15,6 +17,15 @@ public class TSPGeneticAlgorithm implements GeneticAlgorithm<List<Integer>> {
     private double crossoverProbability;
     private double mutationProbability;
     private List<String> lines;
+    private int[][] distanceMatrix;
+    private boolean sharedMatrix;
+    private DistanceStore distanceStore;
+    private int[] flatMatrix;
+    private boolean distinctSurvivors;
+    private boolean verbose = true;
+    private long evaluations;
+    private PopulationSeeder seeder;
+    private SplittableRandom random = RandomProvider.global().newStream();
 
     /**
      * Constructor to initialize TSPGeneticAlgorithm with crossover and mutation probabilities, and distance matrix lines.
@@ -31,14 +42,102 @@ public class TSPGeneticAlgorithm implements GeneticAlgorithm<List<Integer>> {
         this.lines = lines;
     }
 
+    /**
+     * Constructor to initialize TSPGeneticAlgorithm with an already parsed distance matrix, e.g. one shared between several solvers.
+     *
+     * @param crossoverProbability The probability of crossover occurring during reproduction.
+     * @param mutationProbability The probability of mutation occurring during reproduction.
+     * @param distanceMatrix The distances between cities; it is never modified, edge updates are applied to a copy.
+     */
+    public TSPGeneticAlgorithm(double crossoverProbability, double mutationProbability, int[][] distanceMatrix) {
+        this.crossoverProbability = crossoverProbability;
+        this.mutationProbability = mutationProbability;
+        this.distanceMatrix = distanceMatrix;
+        this.sharedMatrix = true;
+    }
+
+    /**
+     * Constructor to initialize TSPGeneticAlgorithm with the probabilities of a configuration and an already parsed distance matrix.
+     *
+     * @param config The configuration to take the crossover and mutation probabilities from.
+     * @param distanceMatrix The distances between cities; it is never modified, edge updates are applied to a copy.
+     */
+    public TSPGeneticAlgorithm(SolverConfig config, int[][] distanceMatrix) {
+        this(config.getCrossoverProbability(), config.getMutationProbability(), distanceMatrix);
+    }
+
+    /**
+     * Constructor to initialize TSPGeneticAlgorithm with a compact symmetric distance store, for instances too large for a full matrix.
+     * Population seeding is skipped, as the heuristics need the full matrix.
+     *
+     * @param crossoverProbability The probability of crossover occurring during reproduction.
+     * @param mutationProbability The probability of mutation occurring during reproduction.
+     * @param distanceStore The distances between cities; edge updates are applied to it in both directions.
+     */
+    public TSPGeneticAlgorithm(double crossoverProbability, double mutationProbability, DistanceStore distanceStore) {
+        this.crossoverProbability = crossoverProbability;
+        this.mutationProbability = mutationProbability;
+        this.distanceStore = distanceStore;
+    }
+
+    //* */ Enable or disable the debugging output printed while selecting parents
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    //* */ Return the probability of crossover, which TSPSolver may adapt during a run
+    public double getCrossoverProbability() {
+        return crossoverProbability;
+    }
+
+    //* */ Return the probability of mutation, which TSPSolver may adapt during a run
+    public double getMutationProbability() {
+        return mutationProbability;
+    }
+
+    //* */ Change the crossover and mutation probabilities for the following generations
+    public void setRates(double crossoverProbability, double mutationProbability) {
+        this.crossoverProbability = crossoverProbability;
+        this.mutationProbability = mutationProbability;
+    }
+
+    //* */ Keep distinct individuals before clones when replacing the population, so truncation cannot fill it with copies of the best
+    public void setDistinctSurvivors(boolean distinctSurvivors) {
+        this.distinctSurvivors = distinctSurvivors;
+    }
+
+    //* */ Return the number of tours evaluated so far; only counted while SolverMetrics are enabled
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    //* */ Use the given random stream for every random decision of this algorithm, e.g. one from a seeded RandomProvider to reproduce a run
+    public void setRandom(SplittableRandom random) {
+        this.random = random;
+    }
+
+    //* */ Fill part of the initial population with heuristic tours instead of random ones; null restores purely random initialization
+    public void setSeeder(PopulationSeeder seeder) {
+        this.seeder = seeder;
+    }
+
     //* */ The initializePopulation method is used to create an initial population of individuals in the genetic algorithm
     @Override
     public List<List<Integer>> initializePopulation(int populationSize, int cities) {
         // Create a new list to store the initial population
         List<List<Integer>> population = new ArrayList<>();
 
-        // Loop to generate individuals for the population
-        for (int i = 0; i < populationSize; i++) {
+        // Start with the heuristic tours, if seeding is enabled and the matrix matches the number of cities
+        if (seeder != null && distanceStore == null && getDistanceMatrix().length == cities) {
+            for (List<Integer> tour : seeder.seed(populationSize, getDistanceMatrix(), random)) {
+                if (population.size() < populationSize) {
+                    population.add(tour);
+                }
+            }
+        }
+
+        // Loop to generate individuals for the rest of the population
+        while (population.size() < populationSize) {
             // Ensure uniqueness of individuals in the population
             while (true) {
                 // Generate a random path for an individual
@@ -58,7 +157,7 @@ public class TSPGeneticAlgorithm implements GeneticAlgorithm<List<Integer>> {
     }
 
     //* */ Return the generated random path, which represents a random permutation of integers from 1 to the number of cities
-    private List<Integer> getRandomPath(int cities) {
+    List<Integer> getRandomPath(int cities) {
         // Create a new list to store the path
         List<Integer> path = new ArrayList<>();
     
@@ -67,25 +166,70 @@ public class TSPGeneticAlgorithm implements GeneticAlgorithm<List<Integer>> {
             path.add(i);
         }
     
-        /*Shuffle the elements in the path to create a random permutation*/ 
-        Collections.shuffle(path);
-            return path;
+        /*Shuffle the elements in the path (Fisher-Yates) to create a random permutation*/ 
+        for (int i = path.size() - 1; i > 0; i--) {
+            Collections.swap(path, i, random.nextInt(i + 1));
+        }
+        return path;
     }
     
+    //* */ Change one distance and return the new distance minus the old one; a matrix shared with other solvers is copied first
+    public int applyEdgeUpdate(EdgeUpdate update) {
+        if (distanceStore != null) {
+            int delta = update.getWeight() - distanceStore.get(update.getFrom(), update.getTo());
+            distanceStore.set(update.getFrom(), update.getTo(), update.getWeight());
+            return delta;
+        }
+        int[][] matrix = getDistanceMatrix();
+        if (sharedMatrix) {
+            matrix = Arrays.stream(matrix).map(int[]::clone).toArray(int[][]::new);
+            distanceMatrix = matrix;
+            sharedMatrix = false;
+        }
+        int delta = update.getWeight() - matrix[update.getFrom()][update.getTo()];
+        matrix[update.getFrom()][update.getTo()] = update.getWeight();
+        flatMatrix = null;
+        return delta;
+    }
+
+    //* */ Return true if the distances are in a symmetric DistanceStore, where an edge update changes both directions
+    boolean isSymmetric() {
+        return distanceStore != null;
+    }
+
+    //* */ Return the distance matrix, converting the lines of the input file into a 2D array on the first call
+    int[][] getDistanceMatrix() {
+        if (distanceStore != null) {
+            throw new IllegalStateException("The distances are in a DistanceStore, see isSymmetric");
+        }
+        if (distanceMatrix == null) {
+            distanceMatrix = lines.stream()
+                    .map(line -> Arrays.stream(line.split(",")).mapToInt(Integer::parseInt).toArray())
+                    .toArray(int[][]::new);
+        }
+        return distanceMatrix;
+    }
+
     //* */ Return the calculated total length of the tour. This represents the sum of distances between consecutive cities in the tour
     @Override
     public int tourLength(List<Integer> tour) {
         /*
-         * Convert the lines of the distance matrix (read from the input file) into a 2D array (distanceMatrix). Each line represents distances from one city to all other cities.
+         * Get the distance matrix as a 2D array (distanceMatrix). Each row represents distances from one city to all other cities.
+         * The lines read from the input file are converted on the first call only; later calls reuse the parsed matrix.
          */ 
-        int[][] distanceMatrix = lines.stream()
-                .map(line -> Arrays.stream(line.split(",")).mapToInt(Integer::parseInt).toArray())
-                .toArray(int[][]::new);
+        if (distanceStore != null) {
+            return tourLength(tour, distanceStore);
+        }
+        int[][] distanceMatrix = getDistanceMatrix();
 
         /*
          *  For each city in the tour, add the distance from the current city to the next city to the totalLength. The distance is retrieved from the distanceMatrix.
          *  The modulo operation ((i + 1) % tour.size()) is used to handle the circular nature of the tour, ensuring that the last city is connected back to the first city.
          */
+        if (SolverMetrics.ENABLED) {
+            evaluations++;
+        }
+
         int totalLength = 0;
         for (int i = 0; i < tour.size(); i++) {
             totalLength += distanceMatrix[tour.get(i) - 1][tour.get((i + 1) % tour.size()) - 1];
@@ -93,6 +237,85 @@ public class TSPGeneticAlgorithm implements GeneticAlgorithm<List<Integer>> {
         return totalLength;
     }
 
+    /**
+     * Evaluates a whole population in one call, with the SIMD kernels if available (see TourKernels).
+     *
+     * @param tours The tours, cities numbered from 1.
+     * @return The length of each tour, in the same order.
+     */
+    public int[] tourLengths(List<List<Integer>> tours) {
+        int[] lengths = new int[tours.size()];
+        int[] distances = getFlatMatrix();
+        if (distances == null) {
+            for (int t = 0; t < lengths.length; t++) {
+                lengths[t] = tourLength(tours.get(t));
+            }
+            return lengths;
+        }
+        if (SolverMetrics.ENABLED) {
+            evaluations += tours.size();
+        }
+        int n = distanceMatrix.length;
+        TourKernels kernels = TourKernels.get();
+        if (!kernels.isVectorized()) {
+            //* */ The scalar loop reads the tours directly; only the vector kernels need them copied into int arrays
+            for (int t = 0; t < lengths.length; t++) {
+                List<Integer> tour = tours.get(t);
+                int previous = tour.get(tour.size() - 1) - 1;
+                int length = 0;
+                for (int i = 0; i < tour.size(); i++) {
+                    int city = tour.get(i) - 1;
+                    length += distances[previous * n + city];
+                    previous = city;
+                }
+                lengths[t] = length;
+            }
+            return lengths;
+        }
+        int[][] indices = new int[tours.size()][];
+        for (int t = 0; t < indices.length; t++) {
+            List<Integer> tour = tours.get(t);
+            indices[t] = new int[tour.size()];
+            for (int i = 0; i < indices[t].length; i++) {
+                indices[t][i] = tour.get(i) - 1;
+            }
+        }
+        kernels.tourLengths(distances, n, indices, lengths);
+        return lengths;
+    }
+
+    //* */ Return the distance matrix flattened row by row for the kernels, or null if the distances are not a square matrix
+    private int[] getFlatMatrix() {
+        if (flatMatrix == null && distanceStore == null) {
+            int[][] matrix = getDistanceMatrix();
+            int n = matrix.length;
+            if (Arrays.stream(matrix).anyMatch(row -> row.length != n)) {
+                return null;
+            }
+            int[] flat = new int[n * n];
+            for (int i = 0; i < n; i++) {
+                System.arraycopy(matrix[i], 0, flat, i * n, n);
+            }
+            flatMatrix = flat;
+        }
+        return flatMatrix;
+    }
+
+    //* */ Return the tour length with the distances of a compact store; same as above, cities numbered from 1
+    private int tourLength(List<Integer> tour, DistanceStore distances) {
+        if (SolverMetrics.ENABLED) {
+            evaluations++;
+        }
+        int totalLength = 0;
+        int previous = tour.get(tour.size() - 1) - 1;
+        for (int i = 0; i < tour.size(); i++) {
+            int city = tour.get(i) - 1;
+            totalLength += distances.get(previous, city);
+            previous = city;
+        }
+        return totalLength;
+    }
+
 
     @Override
     public List<Integer> selectParent(List<List<Integer>> population, List<Integer> fitnessValues) {
@@ -114,7 +337,7 @@ public class TSPGeneticAlgorithm implements GeneticAlgorithm<List<Integer>> {
         }
 
         // Generate a random value between 0 and 1
-        double randomValue = Math.random();
+        double randomValue = random.nextDouble();
 
         // Select a parent based on the random value and cumulative probabilities
         /*
@@ -125,7 +348,8 @@ public class TSPGeneticAlgorithm implements GeneticAlgorithm<List<Integer>> {
         for (int i = 0; i < cumulativeProbabilities.size(); i++) {
             if (randomValue <= cumulativeProbabilities.get(i)) {
                 // Print information for debugging or analysis
-                System.out.println("Selected parent index: " + i + ", Probability Distribution: " + cumulativeProbabilities.get(i));
+                if (verbose)
+                    System.out.println("Selected parent index: " + i + ", Probability Distribution: " + cumulativeProbabilities.get(i));
                 
                 // Return the selected parent from the population
                 return population.get(i);
@@ -136,13 +360,20 @@ public class TSPGeneticAlgorithm implements GeneticAlgorithm<List<Integer>> {
         return population.get(population.size() - 1);
     }
 
+    //* */ Return the index of a parent chosen by binary tournament: the shorter of two random individuals, using cached tour lengths
+    public int selectParentIndex(int[] fitnessValues) {
+        int first = random.nextInt(fitnessValues.length);
+        int second = random.nextInt(fitnessValues.length);
+        return fitnessValues[first] <= fitnessValues[second] ? first : second;
+    }
+
     //* */ Return the two child paths if crossover occurred, or return the parents if no crossover occurred
     @Override
     public List<List<Integer>> crossover(List<Integer> parent1, List<Integer> parent2) {
         //* */ Use the crossover probability to determine whether a crossover should occur. If the random value is less than or equal to the crossover probability, perform crossover; otherwise, return the parents without crossover
-        if (Math.random() <= crossoverProbability) {
+        if (random.nextDouble() <= crossoverProbability) {
             // Randomly select a crossover point
-            int crossoverPoint = new Random().nextInt(parent1.size() - 1) + 1;
+            int crossoverPoint = random.nextInt(parent1.size() - 1) + 1;
 
             // Create two child paths using crossover
             List<Integer> child1 = new ArrayList<>(parent1.subList(0, crossoverPoint));
@@ -200,10 +431,10 @@ public class TSPGeneticAlgorithm implements GeneticAlgorithm<List<Integer>> {
     @Override
     public List<Integer> mutate(List<Integer> individual) {
         // Check if mutation should occur based on the mutation probability
-        if (Math.random() <= mutationProbability) {
+        if (random.nextDouble() <= mutationProbability) {
             // Randomly select two mutation points
-            int mutationPoint1 = new Random().nextInt(individual.size());
-            int mutationPoint2 = new Random().nextInt(individual.size());
+            int mutationPoint1 = random.nextInt(individual.size());
+            int mutationPoint2 = random.nextInt(individual.size());
 
             //* */ Perform mutation by swapping the values at the two randomly selected mutation points in the individual
             Collections.swap(individual, mutationPoint1, mutationPoint2);
@@ -218,20 +449,60 @@ public class TSPGeneticAlgorithm implements GeneticAlgorithm<List<Integer>> {
      */
     @Override
     public List<List<Integer>> replacePopulation(List<List<Integer>> currentPopulation, List<List<Integer>> offspringPopulation) {
-        //* */ Create a new list (combinedPopulation) by adding all individuals from the current population and offspring population. This step combines the solutions from both populations
+        //* */ Evaluate every individual once, instead of once per comparison of the sort
+        return replacePopulation(currentPopulation, tourLengths(currentPopulation), offspringPopulation, tourLengths(offspringPopulation),
+                new int[currentPopulation.size()]);
+    }
+
+    /**
+     * Replaces the population like {@link #replacePopulation(List, List)}, with tour lengths the caller has already computed,
+     * so no individual is evaluated again.
+     *
+     * @param currentPopulation The current population.
+     * @param currentLengths The length of each individual of the current population.
+     * @param offspringPopulation The offspring.
+     * @param offspringLengths The length of each offspring.
+     * @param survivorLengths Receives the length of each individual of the returned population, in the same order.
+     * @return The shortest individuals of both populations, sorted by length; as many as in the current population.
+     */
+    public List<List<Integer>> replacePopulation(List<List<Integer>> currentPopulation, int[] currentLengths,
+            List<List<Integer>> offspringPopulation, int[] offspringLengths, int[] survivorLengths) {
+        //* */ Combine both populations and their lengths; individual i of the combination has length combinedLengths[i]
         List<List<Integer>> combinedPopulation = new ArrayList<>(currentPopulation);
         combinedPopulation.addAll(offspringPopulation);
+        int[] combinedLengths = new int[combinedPopulation.size()];
+        System.arraycopy(currentLengths, 0, combinedLengths, 0, currentLengths.length);
+        System.arraycopy(offspringLengths, 0, combinedLengths, currentLengths.length, offspringLengths.length);
 
         /*
-         * Sort the combined population based on tour lengths
-         * Use Comparator.comparingInt to sort the combined population based on the total tour lengths of the individuals. The tourLength method is used as the key for comparison
+         * Sort the positions in the combination by tour length (stable, so ties keep the current population first)
          */
-        combinedPopulation.sort(Comparator.comparingInt(this::tourLength));
+        Integer[] order = new Integer[combinedLengths.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> combinedLengths[i]));
 
         /* 
-        *
+        * With distinct survivors, clones move behind every distinct individual, so they only survive if there are too few of those
         */ 
-        return combinedPopulation.subList(0, currentPopulation.size());
+        if (distinctSurvivors) {
+            Set<List<Integer>> seen = new HashSet<>();
+            List<Integer> clones = new ArrayList<>();
+            List<Integer> distinct = new ArrayList<>();
+            for (int i : order) {
+                (seen.add(combinedPopulation.get(i)) ? distinct : clones).add(i);
+            }
+            distinct.addAll(clones);
+            order = distinct.toArray(new Integer[0]);
+        }
+
+        List<List<Integer>> survivors = new ArrayList<>(currentPopulation.size());
+        for (int i = 0; i < currentPopulation.size(); i++) {
+            survivors.add(combinedPopulation.get(order[i]));
+            survivorLengths[i] = combinedLengths[order[i]];
+        }
+        return survivors;
     }
 }
 
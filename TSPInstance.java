@@ -0,0 +1,93 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TSPInstance holds a parsed distance matrix, so that it can be shared read-only between solvers and batch jobs.
+ * The matrix is kept both as integers (genetic algorithm, brute force) and as doubles (ant colony).
+ */
+public final class TSPInstance {
+    private final String hash;
+    private final int[][] distances;
+    private final double[][] graph;
+
+    private TSPInstance(String hash, int[][] distances) {
+        this.hash = hash;
+        this.distances = distances;
+        this.graph = new double[distances.length][];
+        for (int i = 0; i < distances.length; i++) {
+            graph[i] = new double[distances[i].length];
+            for (int j = 0; j < distances[i].length; j++) {
+                graph[i][j] = distances[i][j];
+            }
+        }
+    }
+
+    /**
+     * Wraps a matrix that is already in memory, e.g. a generated one.
+     *
+     * @param hash The content hash or another identifier of the instance.
+     * @param distances The square distance matrix; it must not be modified afterwards.
+     * @return The instance.
+     */
+    public static TSPInstance of(String hash, int[][] distances) {
+        return new TSPInstance(hash, distances);
+    }
+
+    /**
+     * Parses the lines of a CSV distance matrix. Empty lines and empty fields are ignored.
+     *
+     * @param hash The content hash identifying the instance.
+     * @param lines The lines of the CSV file, one row of the matrix per line.
+     * @return The parsed instance.
+     * @throws IllegalArgumentException If the matrix is empty or not square, or a value is not an integer.
+     */
+    public static TSPInstance parse(String hash, List<String> lines) {
+        List<int[]> rows = new ArrayList<>();
+        for (String line : lines) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            List<Integer> row = new ArrayList<>();
+            for (String value : line.split(",")) {
+                if (!value.trim().isEmpty()) {
+                    row.add(Integer.parseInt(value.trim()));
+                }
+            }
+            rows.add(row.stream().mapToInt(Integer::intValue).toArray());
+        }
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("Distance matrix is empty");
+        }
+        for (int[] row : rows) {
+            if (row.length != rows.size()) {
+                throw new IllegalArgumentException("Distance matrix is not square: " + rows.size() + " rows, a row of " + row.length);
+            }
+        }
+        return new TSPInstance(hash, rows.toArray(new int[0][]));
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * @return The number of cities, i.e. the number of rows of the matrix.
+     */
+    public int cities() {
+        return distances.length;
+    }
+
+    /**
+     * @return The shared integer matrix; callers must not modify it.
+     */
+    public int[][] getDistances() {
+        return distances;
+    }
+
+    /**
+     * @return The shared floating point matrix; callers must not modify it.
+     */
+    public double[][] getGraph() {
+        return graph;
+    }
+}
@@ -1,47 +1,188 @@
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.stream.Collectors;
 
 public class TSPSolver {
+    /*Instrumented phases of a generation, see SolverMetrics*/ 
+    private static final int SELECTION = 0, CROSSOVER = 1, MUTATION = 2, EVALUATION = 3, REPLACEMENT = 4;
+    private static final String[] PHASES = {"selection", "crossover", "mutation", "evaluation", "replacement"};
+
+    /*Edge entropy below which the adaptive rates rise from their base values towards the maximum*/ 
+    private static final double TARGET_DIVERSITY = 0.5;
+    private static final double MAX_CROSSOVER = 1.0, MAX_MUTATION = 0.5;
+    /*Edge entropy below which random immigrants replace a fraction of the worst individuals each iteration*/ 
+    private static final double IMMIGRANT_DIVERSITY = 0.15;
+    private static final double IMMIGRANT_FRACTION = 0.1;
+
     private final TSPGeneticAlgorithm tspGeneticAlgorithm;
+    private final SolverMetrics metrics;
+
+    /*Best tour found so far, replaced (never modified) on improvement so other threads can poll it mid-run*/ 
+    private volatile TourSnapshot bestSoFar;
+
+    /*Set by another thread to stop the solve at the end of the current iteration; it stays set until reset, so a cancel
+     * that arrives before a solve has started still stops it*/ 
+    private volatile boolean cancelled;
+
+    /*Optional lower bound, used to report the gap of the best tour and to stop once the gap is small enough*/ 
+    private HeldKarpBound lowerBound;
+
+    /*Population of the steady-state engine, kept between calls so it can be warm-started after distance updates*/ 
+    private SteadyStatePopulation steadyState;
+
+    /*Tours from other islands, added by any thread and taken into the steady-state population at the next iteration*/ 
+    private final Queue<List<Integer>> migrants = new ConcurrentLinkedQueue<>();
+
+    /*Whether to print the population and best tour of every iteration, and the final summary*/ 
+    private boolean verbose = true;
+
+    /*Whether the operator rates and immigrants follow the diversity; the GA's rates at construction are the base rates*/ 
+    private boolean adaptive;
+    private final double baseCrossover, baseMutation;
+
+    /*Diversity of the population after the last iteration, see DiversityTracker*/ 
+    private volatile double edgeEntropy = 1, edgeDistance = 1;
 
     /*Constructor to initialize the TSPGeneticAlgorithm instance*/ 
     public TSPSolver(TSPGeneticAlgorithm tspGeneticAlgorithm) {
         this.tspGeneticAlgorithm = tspGeneticAlgorithm;
+        this.metrics = SolverMetrics.ENABLED ? SolverMetrics.forSolver("GA", PHASES) : null;
+        this.baseCrossover = tspGeneticAlgorithm.getCrossoverProbability();
+        this.baseMutation = tspGeneticAlgorithm.getMutationProbability();
+    }
+
+    /*
+     * Let the diversity of the population drive the search: as the edge entropy falls below TARGET_DIVERSITY, crossover and
+     * mutation rates rise from their base values towards MAX_CROSSOVER and MAX_MUTATION, and below IMMIGRANT_DIVERSITY random
+     * tours replace the worst IMMIGRANT_FRACTION of the population. The generational engine also keeps distinct individuals
+     * before clones when truncating. Disabling restores the base rates.
+     */ 
+    public void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+        tspGeneticAlgorithm.setDistinctSurvivors(adaptive);
+        if (!adaptive) {
+            tspGeneticAlgorithm.setRates(baseCrossover, baseMutation);
+        }
+    }
+
+    /*Return the edge entropy of the population after the last iteration: 0 when all tours are clones, 1 when they share no edge*/ 
+    public double getEdgeEntropy() {
+        return edgeEntropy;
     }
 
-    /*Method to solve the TSP using Genetic Algorithm*/ 
+    /*Return the mean fraction of edges two tours of the population did not share after the last iteration*/ 
+    public double getEdgeDistance() {
+        return edgeDistance;
+    }
+
+    /*Method to solve the TSP using Genetic Algorithm for a fixed number of iterations*/ 
     public void solve(int iterations, int populationSize, int cities) {
+        solve(TerminationCriteria.iterations(iterations), populationSize, cities);
+    }
+
+    /*Enable or disable the output of this solver and its genetic algorithm*/ 
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+        tspGeneticAlgorithm.setVerbose(verbose);
+    }
+
+    /*Ask a running solve to stop; the best tour found so far is returned as usual. Later solves return at once until reset*/ 
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /*Withdraw a cancel, before the next solve is started (not from within the solving thread)*/ 
+    public void reset() {
+        cancelled = false;
+    }
+
+    /*Report the gap to the given lower bound and feed it the best tours found; start it in the background to get a live gap*/ 
+    public void setLowerBound(HeldKarpBound lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+
+    /*Return the relative gap between the best tour so far and the lower bound, or infinity if either is not known yet*/ 
+    public double gap() {
+        TourSnapshot best = bestSoFar;
+        return best == null ? Double.POSITIVE_INFINITY : HeldKarpBound.gap(best.getLength(), currentLowerBound());
+    }
+
+    /*Return the current lower bound, or 0 if there is none*/ 
+    private double currentLowerBound() {
+        return lowerBound == null ? 0 : lowerBound.getBound();
+    }
+
+    /*Hand in a tour (cities numbered from 1) from another island; only the steady-state engine takes migrants in*/ 
+    public void offerMigrant(List<Integer> tour) {
+        migrants.add(new ArrayList<>(tour));
+    }
+
+    /*Return the best tour found so far (cities numbered from 1), or null if the first generation has not been evaluated yet*/ 
+    public TourSnapshot bestSoFar() {
+        return bestSoFar;
+    }
+
+    /*Return the steady-state population, or null before the first solveSteadyState; callers must not modify it*/ 
+    SteadyStatePopulation getSteadyState() {
+        return steadyState;
+    }
+
+    /*Method to solve the TSP using Genetic Algorithm until one of the termination criteria is met*/ 
+    public List<Integer> solve(TerminationCriteria criteria, int populationSize, int cities) {
+        bestSoFar = null;
 
         /*Initialize the population with random paths*/ 
         List<List<Integer>> population = tspGeneticAlgorithm.initializePopulation(populationSize, cities);
+        DiversityTracker diversity = new DiversityTracker(cities);
+
+        /*Evaluate the population once; later each generation only evaluates its offspring and keeps the survivors' lengths*/ 
+        int[] lengths = tspGeneticAlgorithm.tourLengths(population);
+        population.forEach(diversity::add);
 
         /*Record the start time for runtime measurement*/  
         long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
 
         /*Perform iterations of the Genetic Algorithm*/ 
-        for (int iteration = 0; iteration < iterations; iteration++) {
-            System.out.println("Iteration " + (iteration + 1) + " - Population:");
-            
-            /*Display details of each individual in the current population*/ 
-            for (int i = 0; i < population.size(); i++) {
-                System.out.println(" Individual " + (i + 1) + ": " + population.get(i) +
-                        ", Length: " + tspGeneticAlgorithm.tourLength(population.get(i)));
+        int iteration = 0;
+        int stagnantIterations = 0;
+        String stopReason = null;
+        while (!cancelled && (stopReason = criteria.stopReason(iteration, System.nanoTime() - startNanos, stagnantIterations,
+                bestSoFar == null ? Double.MAX_VALUE : bestSoFar.getLength(), currentLowerBound())) == null) {
+            if (verbose) {
+                System.out.println("Iteration " + (iteration + 1) + " - Population:");
+
+                /*Display details of each individual in the current population*/ 
+                for (int i = 0; i < population.size(); i++) {
+                    System.out.println(" Individual " + (i + 1) + ": " + population.get(i) + ", Length: " + lengths[i]);
+                }
             }
 
-            /*Calculate fitness values for each individual in the population*/ 
-            List<Integer> fitnessValues = population.stream()
-                    .map(tspGeneticAlgorithm::tourLength)
-                    .collect(Collectors.toList());
+            /*Timestamps and counters for the metrics; only read when SolverMetrics are enabled*/ 
+            long generationBytes = 0, generationEvaluations = 0, phaseStart = 0, crossoverNanos = 0, mutationNanos = 0;
+            if (SolverMetrics.ENABLED) {
+                generationBytes = SolverMetrics.allocatedBytes();
+                generationEvaluations = tspGeneticAlgorithm.getEvaluations();
+                phaseStart = System.nanoTime();
+            }
+
+            /*Fitness values for the selection, from the lengths kept since the individuals were evaluated*/ 
+            List<Integer> fitnessValues = Arrays.stream(lengths).boxed().collect(Collectors.toList());
 
             /*Select parents for crossover based on fitness values*/ 
             List<List<Integer>> parents = new ArrayList<>();
             for (int j = 0; j < populationSize; j++) {
                 parents.add(tspGeneticAlgorithm.selectParent(population, fitnessValues));
             }
+            if (SolverMetrics.ENABLED) {
+                phaseStart = record(SELECTION, phaseStart);
+            }
 
             /*Generate offspring through crossover and mutation*/ 
             List<List<Integer>> offspringPopulation = new ArrayList<>();
@@ -52,31 +193,338 @@ public class TSPSolver {
                 List<List<Integer>> child = tspGeneticAlgorithm.crossover(parent1, parent2);
                 List<Integer> child1 = child.get(0);
                 List<Integer> child2 = child.get(1);
+                if (SolverMetrics.ENABLED) {
+                    long now = System.nanoTime();
+                    crossoverNanos += now - phaseStart;
+                    phaseStart = now;
+                }
 
-                child1 = tspGeneticAlgorithm.mutate(child1);
-                child2 = tspGeneticAlgorithm.mutate(child2);
+                /*Copy before mutating: without crossover the children are the parents themselves*/ 
+                child1 = tspGeneticAlgorithm.mutate(new ArrayList<>(child1));
+                child2 = tspGeneticAlgorithm.mutate(new ArrayList<>(child2));
 
                 offspringPopulation.addAll(Arrays.asList(child1, child2));
+                if (SolverMetrics.ENABLED) {
+                    long now = System.nanoTime();
+                    mutationNanos += now - phaseStart;
+                    phaseStart = now;
+                }
+            }
+            if (SolverMetrics.ENABLED) {
+                metrics.record(CROSSOVER, crossoverNanos);
+                metrics.record(MUTATION, mutationNanos);
             }
 
-            /*Replace the current population with the offspring population*/ 
-            population = tspGeneticAlgorithm.replacePopulation(population, offspringPopulation);
+            /*Evaluate the offspring in one batched call*/ 
+            int[] offspringLengths = tspGeneticAlgorithm.tourLengths(offspringPopulation);
+            if (SolverMetrics.ENABLED) {
+                phaseStart = record(EVALUATION, phaseStart);
+            }
+
+            /*Replace the current population with the offspring population, reusing the lengths for the sort*/ 
+            List<List<Integer>> previous = population;
+            int[] survivorLengths = new int[population.size()];
+            population = tspGeneticAlgorithm.replacePopulation(population, lengths, offspringPopulation, offspringLengths, survivorLengths);
+            lengths = survivorLengths;
+            trackReplacement(diversity, previous, population);
+            int immigrants = adapt(diversity);
+            if (immigrants > 0) {
+                /*The population is sorted by length, so the immigrants replace the worst individuals*/ 
+                List<List<Integer>> newcomers = immigrants(immigrants, cities);
+                int[] newcomerLengths = tspGeneticAlgorithm.tourLengths(newcomers);
+                for (int i = 0; i < newcomers.size() && i < population.size() - 1; i++) {
+                    int slot = population.size() - 1 - i;
+                    diversity.remove(population.get(slot));
+                    population.set(slot, newcomers.get(i));
+                    lengths[slot] = newcomerLengths[i];
+                    diversity.add(newcomers.get(i));
+                }
+            }
+            iteration++;
+            if (SolverMetrics.ENABLED) {
+                record(REPLACEMENT, phaseStart);
+                metrics.endGeneration(tspGeneticAlgorithm.getEvaluations() - generationEvaluations,
+                        generationBytes < 0 ? -1 : SolverMetrics.allocatedBytes() - generationBytes);
+            }
 
             /*Find and display the best tour and its length in the current population*/ 
-            List<Integer> bestTour = Collections.min(population, Comparator.comparingInt(tspGeneticAlgorithm::tourLength));
-            int bestLength = tspGeneticAlgorithm.tourLength(bestTour);
-            System.out.println("Best tour: " + bestTour + ", Length: " + bestLength + "\n");
+            int best = indexOfMin(lengths);
+            List<Integer> bestTour = population.get(best);
+            int bestLength = lengths[best];
+            if (verbose) {
+                System.out.println("Best tour: " + bestTour + ", Length: " + bestLength + gapText(bestLength) + diversityText(immigrants) + "\n");
+            }
+
+            /*Publish the tour if it improves on the best so far, otherwise count the iteration as stagnant*/ 
+            if (bestSoFar == null || bestLength < bestSoFar.getLength()) {
+                bestSoFar = new TourSnapshot(toArray(bestTour), bestLength, iteration, System.nanoTime() - startNanos);
+                if (lowerBound != null) {
+                    lowerBound.offerUpperBound(bestLength);
+                }
+                stagnantIterations = 0;
+            } else {
+                stagnantIterations++;
+            }
         }
 
         /*Find and display the final best tour and its length in the last population*/ 
-        List<Integer> finalBestTour = Collections.min(population, Comparator.comparingInt(tspGeneticAlgorithm::tourLength));
-        int finalBestLength = tspGeneticAlgorithm.tourLength(finalBestTour);
-        System.out.println("Final Best Tour: " + finalBestTour + ", Length: " + finalBestLength);
+        int finalBest = indexOfMin(lengths);
+        List<Integer> finalBestTour = population.get(finalBest);
+        int finalBestLength = lengths[finalBest];
+        if (bestSoFar == null) {
+            bestSoFar = new TourSnapshot(toArray(finalBestTour), finalBestLength, iteration, System.nanoTime() - startNanos);
+        }
+        if (verbose) {
+            System.out.println("Final Best Tour: " + finalBestTour + ", Length: " + finalBestLength + gapText(finalBestLength));
+            System.out.println("Stopped after " + iteration + " iterations: " + (stopReason == null ? "cancelled" : stopReason));
+
+            /*Record the end time for runtime measurement*/ 
+            long endTime = System.currentTimeMillis();
+            double executionTime = (endTime - startTime) / 1000.0;
+            System.out.println("Runtime: " + executionTime + " seconds");
+        }
+
+        return new ArrayList<>(finalBestTour);
+    }
+
+    /*
+     * Method to solve the TSP with a steady-state Genetic Algorithm until one of the termination criteria is met.
+     * Each step selects two parents by tournament and breeds two children; a child replaces the worst individual in place
+     * if it is shorter and not already in the population (see SteadyStatePopulation). No intermediate parent, offspring or
+     * merged lists are built. One iteration is populationSize children. The population is kept for reoptimize.
+     */ 
+    public List<Integer> solveSteadyState(TerminationCriteria criteria, int populationSize, int cities) {
+        /*Initialize the population and cache the length of every individual*/ 
+        steadyState = new SteadyStatePopulation(tspGeneticAlgorithm.initializePopulation(populationSize, cities), tspGeneticAlgorithm);
+        return evolveSteadyState(criteria);
+    }
 
-        /*Record the end time for runtime measurement*/ 
-        long endTime = System.currentTimeMillis();
-        double executionTime = (endTime - startTime) / 1000.0;
-        System.out.println("Runtime: " + executionTime + " seconds");
+    /*
+     * Warm-start after distance changes: apply the updates to the distance matrix, adjust the cached length of only the
+     * individuals that travel an updated edge, and continue the steady-state evolution from the previous population.
+     * A lower bound set before is dropped, as it no longer holds for the new distances. The whole batch is validated
+     * first (see EdgeUpdate.validate), so an invalid update changes nothing.
+     */ 
+    public List<Integer> reoptimize(List<EdgeUpdate> updates, TerminationCriteria criteria) {
+        if (steadyState == null) {
+            throw new IllegalStateException("reoptimize needs a population from a previous solveSteadyState");
+        }
+        EdgeUpdate.validate(updates, steadyState.getBest().size());
+        int affected = 0;
+        for (EdgeUpdate update : updates) {
+            int delta = tspGeneticAlgorithm.applyEdgeUpdate(update);
+            if (delta != 0) {
+                affected += steadyState.applyEdgeDelta(update.getFrom(), update.getTo(), delta);
+                /*In a symmetric store the update also changed the reverse direction*/ 
+                if (tspGeneticAlgorithm.isSymmetric()) {
+                    affected += steadyState.applyEdgeDelta(update.getTo(), update.getFrom(), delta);
+                }
+            }
+        }
+        steadyState.refreshBest();
+        lowerBound = null;
+        if (verbose) {
+            System.out.println("Applied " + updates.size() + " edge updates, re-scored " + affected + " tour lengths");
+        }
+        return evolveSteadyState(criteria);
+    }
+
+    /*Run the steady-state evolution on the current population until one of the termination criteria is met*/ 
+    private List<Integer> evolveSteadyState(TerminationCriteria criteria) {
+        SteadyStatePopulation population = steadyState;
+        int populationSize = population.size();
+
+        /*Record the start time for runtime measurement*/  
+        long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        bestSoFar = new TourSnapshot(toArray(population.getBest()), population.getBestLength(), 0, 0);
+
+        int iteration = 0;
+        int stagnantIterations = 0;
+        String stopReason = null;
+        while (!cancelled && (stopReason = criteria.stopReason(iteration, System.nanoTime() - startNanos, stagnantIterations,
+                bestSoFar.getLength(), currentLowerBound())) == null) {
+            int bestBefore = population.getBestLength();
+
+            /*Take in the migrants like children: they replace the worst individual if they are shorter and new*/ 
+            List<Integer> migrant;
+            while ((migrant = migrants.poll()) != null) {
+                population.offer(migrant, tspGeneticAlgorithm.tourLength(migrant));
+            }
+
+            /*Timestamps and counters for the metrics; only read when SolverMetrics are enabled*/ 
+            long generationBytes = 0, generationEvaluations = 0, phaseStart = 0;
+            long[] phaseNanos = SolverMetrics.ENABLED ? new long[PHASES.length] : null;
+            if (SolverMetrics.ENABLED) {
+                generationBytes = SolverMetrics.allocatedBytes();
+                generationEvaluations = tspGeneticAlgorithm.getEvaluations();
+                phaseStart = System.nanoTime();
+            }
+
+            int immigrants = adapt(population.getDiversity());
+            if (immigrants > 0) {
+                List<List<Integer>> newcomers = immigrants(immigrants, population.get(0).size());
+                population.injectImmigrants(newcomers, tspGeneticAlgorithm.tourLengths(newcomers));
+            }
+
+            for (int step = 0; step < populationSize; step += 2) {
+                /*Select two parents by tournament on the cached lengths*/ 
+                List<Integer> parent1 = population.get(tspGeneticAlgorithm.selectParentIndex(population.getFitnessValues()));
+                List<Integer> parent2 = population.get(tspGeneticAlgorithm.selectParentIndex(population.getFitnessValues()));
+                if (SolverMetrics.ENABLED) {
+                    phaseStart = accumulate(phaseNanos, SELECTION, phaseStart);
+                }
+
+                List<List<Integer>> children = tspGeneticAlgorithm.crossover(parent1, parent2);
+                if (SolverMetrics.ENABLED) {
+                    phaseStart = accumulate(phaseNanos, CROSSOVER, phaseStart);
+                }
+
+                for (List<Integer> child : children) {
+                    /*Copy before mutating: without crossover the children are the parents themselves*/ 
+                    child = tspGeneticAlgorithm.mutate(new ArrayList<>(child));
+                    if (SolverMetrics.ENABLED) {
+                        phaseStart = accumulate(phaseNanos, MUTATION, phaseStart);
+                    }
+
+                    int length = tspGeneticAlgorithm.tourLength(child);
+                    if (SolverMetrics.ENABLED) {
+                        phaseStart = accumulate(phaseNanos, EVALUATION, phaseStart);
+                    }
+
+                    /*Replace the worst individual in place if the child is shorter and new*/ 
+                    population.offer(child, length);
+                    if (SolverMetrics.ENABLED) {
+                        phaseStart = accumulate(phaseNanos, REPLACEMENT, phaseStart);
+                    }
+                }
+            }
+            iteration++;
+            if (SolverMetrics.ENABLED) {
+                for (int phase = 0; phase < PHASES.length; phase++) {
+                    metrics.record(phase, phaseNanos[phase]);
+                }
+                metrics.endGeneration(tspGeneticAlgorithm.getEvaluations() - generationEvaluations,
+                        generationBytes < 0 ? -1 : SolverMetrics.allocatedBytes() - generationBytes);
+            }
+
+            if (verbose) {
+                System.out.println("Iteration " + iteration + " - Best tour: " + population.getBest() + ", Length: " + population.getBestLength()
+                        + gapText(population.getBestLength()) + diversityText(immigrants));
+            }
+
+            /*Publish the tour if it improves on the best so far, otherwise count the iteration as stagnant*/ 
+            if (population.getBestLength() < bestBefore) {
+                bestSoFar = new TourSnapshot(toArray(population.getBest()), population.getBestLength(), iteration, System.nanoTime() - startNanos);
+                if (lowerBound != null) {
+                    lowerBound.offerUpperBound(population.getBestLength());
+                }
+                stagnantIterations = 0;
+            } else {
+                stagnantIterations++;
+            }
+        }
+
+        if (verbose) {
+            System.out.println("Final Best Tour: " + population.getBest() + ", Length: " + population.getBestLength() + gapText(population.getBestLength()));
+            System.out.println("Stopped after " + iteration + " iterations: " + (stopReason == null ? "cancelled" : stopReason));
+
+            /*Record the end time for runtime measurement*/ 
+            long endTime = System.currentTimeMillis();
+            double executionTime = (endTime - startTime) / 1000.0;
+            System.out.println("Runtime: " + executionTime + " seconds");
+        }
+        return new ArrayList<>(population.getBest());
+    }
+
+    /*
+     * Publish the diversity and, if adaptive, set the operator rates for the next iteration.
+     * Return the number of immigrants to inject, 0 if the population is diverse enough or the solver is not adaptive.
+     */ 
+    private int adapt(DiversityTracker diversity) {
+        edgeEntropy = diversity.entropy();
+        edgeDistance = diversity.edgeDistance();
+        if (!adaptive) {
+            return 0;
+        }
+        double scarcity = Math.max(0, 1 - edgeEntropy / TARGET_DIVERSITY);
+        tspGeneticAlgorithm.setRates(baseCrossover + (Math.max(baseCrossover, MAX_CROSSOVER) - baseCrossover) * scarcity,
+                baseMutation + (Math.max(baseMutation, MAX_MUTATION) - baseMutation) * scarcity);
+        return edgeEntropy < IMMIGRANT_DIVERSITY ? Math.max(1, (int) (diversity.size() * IMMIGRANT_FRACTION)) : 0;
+    }
+
+    /*Random tours to restore diversity*/ 
+    private List<List<Integer>> immigrants(int count, int cities) {
+        List<List<Integer>> immigrants = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            immigrants.add(tspGeneticAlgorithm.getRandomPath(cities));
+        }
+        return immigrants;
+    }
+
+    /*Update the diversity for the tours that left and joined the population; survivors are the same objects, so compare identities*/ 
+    private static void trackReplacement(DiversityTracker diversity, List<List<Integer>> before, List<List<Integer>> after) {
+        Map<List<Integer>, Integer> left = new IdentityHashMap<>();
+        for (List<Integer> tour : before) {
+            left.merge(tour, 1, Integer::sum);
+        }
+        for (List<Integer> tour : after) {
+            Integer count = left.get(tour);
+            if (count == null) {
+                diversity.add(tour);
+            } else if (count == 1) {
+                left.remove(tour);
+            } else {
+                left.put(tour, count - 1);
+            }
+        }
+        left.forEach((tour, count) -> {
+            for (int i = 0; i < count; i++) {
+                diversity.remove(tour);
+            }
+        });
+    }
+
+    /*Describe the diversity and the current rates for the output of an iteration*/ 
+    private String diversityText(int immigrants) {
+        return String.format(Locale.ROOT, ", Entropy: %.3f, Edge distance: %.3f, Crossover: %.2f, Mutation: %.2f%s",
+                edgeEntropy, edgeDistance, tspGeneticAlgorithm.getCrossoverProbability(), tspGeneticAlgorithm.getMutationProbability(),
+                immigrants > 0 ? ", Immigrants: " + immigrants : "");
+    }
+
+    /*Describe the gap of a tour length to the lower bound for the output, or nothing if there is no bound yet*/ 
+    private String gapText(double length) {
+        double bound = currentLowerBound();
+        return bound > 0 ? String.format(Locale.ROOT, ", Lower bound: %.0f, Gap: %.2f%%", bound, 100 * HeldKarpBound.gap(length, bound)) : "";
+    }
+
+    /*Return the position of the shortest length, the first one on ties*/ 
+    private static int indexOfMin(int[] lengths) {
+        int best = 0;
+        for (int i = 1; i < lengths.length; i++) {
+            if (lengths[i] < lengths[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /*Add the time since phaseStart to the given phase and return the current time as the start of the next phase*/ 
+    private static long accumulate(long[] phaseNanos, int phase, long phaseStart) {
+        long now = System.nanoTime();
+        phaseNanos[phase] += now - phaseStart;
+        return now;
+    }
+
+    /*Record the time since phaseStart for the given phase and return the current time as the start of the next phase*/ 
+    private long record(int phase, long phaseStart) {
+        long now = System.nanoTime();
+        metrics.record(phase, now - phaseStart);
+        return now;
+    }
 
+    /*Copy a tour into a primitive array for publishing in a snapshot*/ 
+    private static int[] toArray(List<Integer> tour) {
+        return tour.stream().mapToInt(Integer::intValue).toArray();
     }
 }
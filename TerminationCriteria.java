@@ -0,0 +1,160 @@
+/**
+ * TerminationCriteria describes when an anytime solver should stop improving its best tour.
+ * A solver stops as soon as any of the enabled conditions is met:
+ * an iteration limit, a wall-clock time limit, a number of iterations without improvement (stagnation),
+ * reaching a target tour length, or getting within a relative gap of a lower bound.
+ * A value of zero (or less) disables the corresponding condition.
+ */
+public final class TerminationCriteria {
+    private final int maxIterations;
+    private final long timeLimitNanos;
+    private final int stagnationLimit;
+    private final double targetLength;
+    private final double maxGap;
+
+    private TerminationCriteria(int maxIterations, long timeLimitNanos, int stagnationLimit, double targetLength, double maxGap) {
+        this.maxIterations = maxIterations;
+        this.timeLimitNanos = timeLimitNanos;
+        this.stagnationLimit = stagnationLimit;
+        this.targetLength = targetLength;
+        this.maxGap = maxGap;
+    }
+
+    /**
+     * Creates criteria that stop after a fixed number of iterations, matching the original solver behaviour.
+     *
+     * @param maxIterations The maximum number of iterations (generations for the GA, colony rounds for ACO).
+     * @return The new criteria.
+     */
+    public static TerminationCriteria iterations(int maxIterations) {
+        return new TerminationCriteria(maxIterations, 0, 0, 0, 0);
+    }
+
+    /**
+     * Creates criteria that stop once the given wall-clock budget has been spent.
+     *
+     * @param millis The time budget in milliseconds, measured from the start of the solve.
+     * @return The new criteria.
+     */
+    public static TerminationCriteria timeLimit(long millis) {
+        return new TerminationCriteria(0, millis * 1_000_000L, 0, 0, 0);
+    }
+
+    public TerminationCriteria withMaxIterations(int maxIterations) {
+        return new TerminationCriteria(maxIterations, timeLimitNanos, stagnationLimit, targetLength, maxGap);
+    }
+
+    public TerminationCriteria withTimeLimit(long millis) {
+        return new TerminationCriteria(maxIterations, millis * 1_000_000L, stagnationLimit, targetLength, maxGap);
+    }
+
+    /**
+     * @param stagnationLimit Stop after this many consecutive iterations without improving the best tour.
+     */
+    public TerminationCriteria withStagnationLimit(int stagnationLimit) {
+        return new TerminationCriteria(maxIterations, timeLimitNanos, stagnationLimit, targetLength, maxGap);
+    }
+
+    /**
+     * @param targetLength Stop as soon as a tour at least this short has been found.
+     */
+    public TerminationCriteria withTargetLength(double targetLength) {
+        return new TerminationCriteria(maxIterations, timeLimitNanos, stagnationLimit, targetLength, maxGap);
+    }
+
+    /**
+     * @param maxGap Stop as soon as the best tour is within this relative gap of a lower bound, e.g. 0.01 for 1%.
+     *               Only applies to solvers that have been given a {@link HeldKarpBound}.
+     */
+    public TerminationCriteria withMaxGap(double maxGap) {
+        return new TerminationCriteria(maxIterations, timeLimitNanos, stagnationLimit, targetLength, maxGap);
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    public long getTimeLimitNanos() {
+        return timeLimitNanos;
+    }
+
+    public int getStagnationLimit() {
+        return stagnationLimit;
+    }
+
+    public double getTargetLength() {
+        return targetLength;
+    }
+
+    public double getMaxGap() {
+        return maxGap;
+    }
+
+    /**
+     * Checks the criteria against the current progress of a solver.
+     *
+     * @param iteration The number of completed iterations.
+     * @param elapsedNanos The time spent since the solve started.
+     * @param stagnantIterations The number of consecutive iterations without improvement.
+     * @param bestLength The length of the best tour found so far.
+     * @return The reason for stopping, or null if the solver should continue.
+     */
+    public String stopReason(int iteration, long elapsedNanos, int stagnantIterations, double bestLength) {
+        return stopReason(iteration, elapsedNanos, stagnantIterations, bestLength, 0);
+    }
+
+    /**
+     * Checks the criteria against the current progress of a solver that knows a lower bound on the tour length.
+     *
+     * @param iteration The number of completed iterations.
+     * @param elapsedNanos The time spent since the solve started.
+     * @param stagnantIterations The number of consecutive iterations without improvement.
+     * @param bestLength The length of the best tour found so far.
+     * @param lowerBound A lower bound on the length of any tour, or 0 if none is known.
+     * @return The reason for stopping, or null if the solver should continue.
+     */
+    public String stopReason(int iteration, long elapsedNanos, int stagnantIterations, double bestLength, double lowerBound) {
+        if (lowerBound > 0 && bestLength <= lowerBound) {
+            return "tour length equals the lower bound, optimal";
+        }
+        if (maxGap > 0 && HeldKarpBound.gap(bestLength, lowerBound) <= maxGap) {
+            return "gap to lower bound " + lowerBound + " within " + maxGap;
+        }
+        if (targetLength > 0 && bestLength <= targetLength) {
+            return "target length " + targetLength + " reached";
+        }
+        if (maxIterations > 0 && iteration >= maxIterations) {
+            return "iteration limit " + maxIterations + " reached";
+        }
+        if (timeLimitNanos > 0 && elapsedNanos >= timeLimitNanos) {
+            return "time limit " + (timeLimitNanos / 1_000_000L) + " ms reached";
+        }
+        if (stagnationLimit > 0 && stagnantIterations >= stagnationLimit) {
+            return "no improvement for " + stagnationLimit + " iterations";
+        }
+        return null;
+    }
+
+    /**
+     * Convenience wrapper around {@link #stopReason(int, long, int, double)}.
+     */
+    public boolean shouldStop(int iteration, long elapsedNanos, int stagnantIterations, double bestLength) {
+        return stopReason(iteration, elapsedNanos, stagnantIterations, bestLength) != null;
+    }
+
+    /**
+     * Convenience wrapper around {@link #stopReason(int, long, int, double, double)}.
+     */
+    public boolean shouldStop(int iteration, long elapsedNanos, int stagnantIterations, double bestLength, double lowerBound) {
+        return stopReason(iteration, elapsedNanos, stagnantIterations, bestLength, lowerBound) != null;
+    }
+
+    @Override
+    public String toString() {
+        return "TerminationCriteria{maxIterations=" + maxIterations
+                + ", timeLimitMillis=" + (timeLimitNanos / 1_000_000L)
+                + ", stagnationLimit=" + stagnationLimit
+                + ", targetLength=" + targetLength
+                + ", maxGap=" + maxGap + "}";
+    }
+}
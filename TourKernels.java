@@ -0,0 +1,100 @@
+/**
+ * TourKernels are the inner loops of tour evaluation and pheromone updates, over flat row-major matrices
+ * (the distance from city i to city j at index i * n + j, cities numbered from 0).
+ * This class is the scalar implementation, which C2 already unrolls and partly auto-vectorizes.
+ * The experimental SIMD version lives in vector/ so the main sources compile without the incubator module:
+ * <pre>javac --add-modules jdk.incubator.vector -cp . -d . vector/VectorTourKernels.java</pre>
+ * {@link #get()} returns it instead when it is on the class path, {@code -Dtsp.vector=true} is set, the JVM runs
+ * with {@code --add-modules jdk.incubator.vector} and the CPU has vectors of at least 4 ints. It is opt-in because on JDK 17
+ * the incubating gathers measured 2-3x slower than the scalar loop (AVX-512, 1000 cities); re-measure on newer JDKs.
+ */
+public class TourKernels {
+    private static final TourKernels INSTANCE = load();
+
+    protected TourKernels() {
+    }
+
+    /**
+     * @return The fastest kernels available in this JVM.
+     */
+    public static TourKernels get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return True if the kernels use the Vector API.
+     */
+    public boolean isVectorized() {
+        return false;
+    }
+
+    /*Load the vector kernels reflectively, so this class works without the incubator module*/ 
+    private static TourKernels load() {
+        if (Boolean.parseBoolean(System.getProperty("tsp.vector", "false"))
+                && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (TourKernels) Class.forName("VectorTourKernels").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+                // fall back to the scalar kernels, e.g. when the CPU has no usable vectors
+            }
+        }
+        return new TourKernels();
+    }
+
+    /**
+     * @param distances The flat distance matrix.
+     * @param n The number of cities.
+     * @param tour The tour, cities numbered from 0.
+     * @return The length of the closed tour.
+     */
+    public int tourLength(int[] distances, int n, int[] tour) {
+        int length = distances[tour[tour.length - 1] * n + tour[0]];
+        for (int i = 0; i < tour.length - 1; i++) {
+            length += distances[tour[i] * n + tour[i + 1]];
+        }
+        return length;
+    }
+
+    /**
+     * Evaluates a whole population in one call.
+     *
+     * @param distances The flat distance matrix.
+     * @param n The number of cities.
+     * @param tours The tours, cities numbered from 0.
+     * @param lengths Receives the length of each tour.
+     */
+    public void tourLengths(int[] distances, int n, int[][] tours, int[] lengths) {
+        for (int t = 0; t < tours.length; t++) {
+            lengths[t] = tourLength(distances, n, tours[t]);
+        }
+    }
+
+    /**
+     * @see #tourLength(int[], int, int[])
+     */
+    public double tourLength(double[] distances, int n, int[] tour) {
+        double length = distances[tour[tour.length - 1] * n + tour[0]];
+        for (int i = 0; i < tour.length - 1; i++) {
+            length += distances[tour[i] * n + tour[i + 1]];
+        }
+        return length;
+    }
+
+    /**
+     * Multiplies every value by the factor in place, e.g. to evaporate a row of pheromone trails.
+     */
+    public void scale(double[] values, double factor) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] *= factor;
+        }
+    }
+
+    /**
+     * Stores the element-wise product of a and b in out, e.g. trail times heuristic for the choice info of a row.
+     */
+    public void multiply(double[] a, double[] b, double[] out) {
+        for (int i = 0; i < out.length; i++) {
+            out[i] = a[i] * b[i];
+        }
+    }
+}
@@ -0,0 +1,51 @@
+import java.util.Arrays;
+
+/**
+ * TourSnapshot is an immutable copy of the best tour a solver has found so far.
+ * Solvers publish a new snapshot whenever their best tour improves, so another thread can poll it safely mid-run.
+ * The tour is stored in the numbering of the solver that produced it.
+ */
+public final class TourSnapshot {
+    private final int[] tour;
+    private final double length;
+    private final int iteration;
+    private final long elapsedNanos;
+
+    public TourSnapshot(int[] tour, double length, int iteration, long elapsedNanos) {
+        this.tour = tour.clone();
+        this.length = length;
+        this.iteration = iteration;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return A copy of the tour, so callers cannot modify the snapshot.
+     */
+    public int[] getTour() {
+        return tour.clone();
+    }
+
+    public double getLength() {
+        return length;
+    }
+
+    /**
+     * @return The iteration in which this tour was found.
+     */
+    public int getIteration() {
+        return iteration;
+    }
+
+    /**
+     * @return The time between the start of the solve and the moment this tour was found.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "Tour: " + Arrays.toString(tour) + ", Length: " + length
+                + ", Iteration: " + iteration + ", Found after: " + (elapsedNanos / 1_000_000L) + " ms";
+    }
+}
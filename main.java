@@ -16,26 +16,46 @@ public class main {
             if (lines.isEmpty()) {
                 System.out.println("File is empty!");
             } else {
-                // Set the number of iterations, cities, and population size
+                // Set the number of iterations, time budget, cities, and population size
                 int iterations = 100;
+                long timeLimitMillis = 2000;
+                int maxBruteForceCities = 10;
                 int cities = lines.size() ;
                 int populationSize = lines.size() ;
 
-                // Generate random probabilities for crossover and mutation
-                double crossoverProbability = Math.random();
-                double mutationProbability = Math.random();
+                // Take the probabilities for crossover and mutation from the configuration (see ParameterTuner)
+                // Print the seed so the run can be repeated with -Dtsp.seed=<seed>
+                System.out.println("Random seed: " + RandomProvider.global().getMasterSeed());
+                SolverConfig config = SolverConfig.defaults();
+                double crossoverProbability = config.getCrossoverProbability();
+                double mutationProbability = config.getMutationProbability();
 
                 // Create an instance of TSPGeneticAlgorithm with the generated parameters
                 TSPGeneticAlgorithm tspGeneticAlgorithm = new TSPGeneticAlgorithm(crossoverProbability, mutationProbability, lines);
 
+                // Compute a lower bound in the background, so the solver can report how far it is from optimal
+                HeldKarpBound lowerBound = new HeldKarpBound(tspGeneticAlgorithm.getDistanceMatrix(), 10_000);
+                lowerBound.startInBackground();
+
                 // Create an instance of TSPSolver and solve the TSP problem
                 TSPSolver tspSolver = new TSPSolver(tspGeneticAlgorithm);
-                tspSolver.solve(iterations, populationSize, cities);
+                tspSolver.setLowerBound(lowerBound);
+                // Let the diversity of the population drive the operator rates and immigrants
+                tspSolver.setAdaptive(true);
+                // Known optima from earlier runs (see ResultCache) let the GA stop as soon as it reaches them
+                ResultCache resultCache = ResultCache.openDefault();
+                TerminationCriteria criteria = resultCache.withTarget(
+                        TerminationCriteria.iterations(iterations).withTimeLimit(timeLimitMillis), tspGeneticAlgorithm.getDistanceMatrix());
+                tspSolver.solve(criteria, populationSize, cities);
+                System.out.println("Lower bound: " + lowerBound.getBound() + ", Gap: " + tspSolver.gap());
 
-                // Uncomment the following lines to compare with BruteForce
-                BruteForce comparation = new BruteForce(lines);
-                comparation.solve();
-                comparation.printTourAndLength();
+                // Compare with BruteForce only where it can finish; larger instances rely on the lower bound
+                if (cities <= maxBruteForceCities) {
+                    BruteForce comparation = new BruteForce(lines);
+                    comparation.setResultCache(resultCache);
+                    comparation.solve();
+                    comparation.printTourAndLength();
+                }
             }
 
             // Close the scanner if it was used (commented out for now)
@@ -0,0 +1,68 @@
+import com.sun.net.httpserver.HttpServer;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks the error accounting of BatchSolver: a file that cannot be read and a matrix that cannot be parsed each
+ * write one error line and count as failed, next to a solved instance, and the stats stay valid JSON in any locale.
+ */
+public class BatchSolverTest {
+    public static void main(String[] args) throws Exception {
+        // A locale with a decimal comma would break the number in the stats JSON
+        Locale.setDefault(Locale.GERMANY);
+        Path directory = Files.createTempDirectory("batch-solver-test");
+        Path good = directory.resolve("good.csv");
+        Path bad = directory.resolve("bad.csv");
+        Path missing = directory.resolve("missing.csv");
+        Path output = directory.resolve("results.jsonl");
+        Files.write(good, Files.readAllBytes(Path.of("6_cities.csv")));
+        Files.write(bad, "0,1\nx,0\n".getBytes(StandardCharsets.UTF_8));
+        try (BatchSolver batch = new BatchSolver(output, TerminationCriteria.iterations(50), 2, 8)) {
+            List<CompletableFuture<String>> jobs = List.of(batch.submit(good), batch.submit(bad), batch.submit(missing));
+            Checks.check(jobs.get(0).join().contains("\"optimal\":true"), "good instance not solved to optimality");
+            for (CompletableFuture<String> failed : jobs.subList(1, 3)) {
+                Checks.throwsException(Exception.class, failed::join, "failed job completed normally");
+            }
+
+            List<String> lines = Files.readAllLines(output);
+            Checks.equal(3, lines.size(), "result lines");
+            Checks.equal(2, lines.stream().filter(line -> line.contains("\"error\"")).count(), "error lines");
+            Checks.check(lines.stream().anyMatch(line -> line.startsWith("{\"name\":\"missing.csv\",\"error\":")), "no error line for the missing file");
+            Checks.check(lines.stream().anyMatch(line -> line.startsWith("{\"name\":\"bad.csv\",\"error\":")), "no error line for the bad file");
+
+            HttpServer server = batch.serve(0);
+            try {
+                String stats = get("http://localhost:" + server.getAddress().getPort() + "/stats");
+                Checks.check(stats.contains("\"solved\":1,\"failed\":2"), "stats " + stats);
+                Matcher throughput = Pattern.compile("\"instancesPerSecond\":(\\d+\\.\\d{3})}").matcher(stats);
+                Checks.check(throughput.find(), "throughput is not a JSON number: " + stats);
+            } finally {
+                server.stop(0);
+            }
+        } finally {
+            for (Path file : new Path[] {good, bad, output}) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory);
+        }
+        System.out.println("BatchSolverTest OK");
+    }
+
+    private static String get(String url) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try (InputStream in = connection.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * Checks is the small assertion helper of the behaviour checks in this directory. The project has no test framework,
+ * so every check is a class with a main method that throws on the first failure and prints OK otherwise:
+ * <pre>
+ * javac -d out *.java &amp;&amp; javac -cp out -d out test/*.java &amp;&amp; java -cp out IndexedHeapTest
+ * </pre>
+ */
+final class Checks {
+    /** Code expected to throw, possibly a checked exception. */
+    interface Action {
+        void run() throws Exception;
+    }
+
+    private Checks() {
+    }
+
+    static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    static void equal(long expected, long actual, String message) {
+        check(expected == actual, message + ": expected " + expected + ", got " + actual);
+    }
+
+    static void close(double expected, double actual, String message) {
+        check(Math.abs(expected - actual) <= 1e-9, message + ": expected " + expected + ", got " + actual);
+    }
+
+    static void throwsException(Class<? extends Throwable> type, Action action, String message) {
+        try {
+            action.run();
+        } catch (Throwable e) {
+            check(type.isInstance(e), message + ": expected " + type.getSimpleName() + ", got " + e);
+            return;
+        }
+        throw new AssertionError(message + ": expected " + type.getSimpleName());
+    }
+}
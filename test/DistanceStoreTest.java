@@ -0,0 +1,62 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Checks DistanceStore at each width: the round trip of a full matrix, the width chosen for a range of values,
+ * and the rebuild when a set falls outside the range of the store.
+ */
+public class DistanceStoreTest {
+    public static void main(String[] args) {
+        // The narrowest width that holds max - min, whatever the offset
+        Checks.equal(1, DistanceStore.allocate(10, 1, 100, 88888).width(), "width of 1..100");
+        Checks.equal(1, DistanceStore.allocate(10, -1000, -745, 0).width(), "width of a range of 255");
+        Checks.equal(2, DistanceStore.allocate(10, 0, 256, 0).width(), "width of a range of 256");
+        Checks.equal(2, DistanceStore.allocate(10, 5, 5 + 0xFFFF, 0).width(), "width of a range of 65535");
+        Checks.equal(4, DistanceStore.allocate(10, 0, 0x10000, 0).width(), "width of a range of 65536");
+        Checks.equal(4, DistanceStore.allocate(10, Integer.MIN_VALUE, Integer.MAX_VALUE, 0).width(), "width of the int range");
+
+        SplittableRandom random = new SplittableRandom(4);
+        int[][] bounds = {{1, 100}, {-200, 55}, {0, 60000}, {-30000, 35535}, {-5, 1_000_000}, {Integer.MIN_VALUE, Integer.MAX_VALUE}};
+        int[] widths = {1, 1, 2, 2, 4, 4};
+        for (int b = 0; b < bounds.length; b++) {
+            int[][] matrix = randomMatrix(30, bounds[b][0], bounds[b][1], random);
+            DistanceStore store = DistanceStore.of(matrix);
+            Checks.equal(widths[b], store.width(), "width of " + Arrays.toString(bounds[b]));
+            Checks.check(Arrays.deepEquals(matrix, store.toMatrix()), "round trip of " + Arrays.toString(bounds[b]));
+            Checks.equal(matrix[3][7], store.get(7, 3), "get in both directions");
+            Checks.equal(matrix[0][0], store.get(5, 5), "diagonal");
+        }
+
+        // A set outside the range rebuilds the store, wider or from a lower offset, and keeps every other distance
+        int[][] matrix = randomMatrix(25, 10, 60, random);
+        DistanceStore store = DistanceStore.of(matrix);
+        int[][] updates = {{1, 2, 3}, {4, 1, 300}, {0, 9, -70000}, {8, 3, Integer.MAX_VALUE}, {5, 6, Integer.MIN_VALUE}};
+        int[] widthsAfter = {1, 2, 4, 4, 4};
+        for (int u = 0; u < updates.length; u++) {
+            int i = updates[u][0], j = updates[u][1], distance = updates[u][2];
+            store.set(i, j, distance);
+            matrix[i][j] = matrix[j][i] = distance;
+            Checks.equal(widthsAfter[u], store.width(), "width after setting " + distance);
+            Checks.check(Arrays.deepEquals(matrix, store.toMatrix()), "distances after setting " + distance);
+        }
+        Checks.throwsException(IllegalArgumentException.class, () -> store.set(2, 2, 1), "set on the diagonal");
+
+        // Only symmetric matrices with one diagonal value can be stored
+        Checks.throwsException(IllegalArgumentException.class, () -> DistanceStore.of(new int[][] {{0, 1}, {2, 0}}), "asymmetric matrix");
+        Checks.throwsException(IllegalArgumentException.class, () -> DistanceStore.of(new int[][] {{0, 1}, {1, 5}}), "two diagonal values");
+        System.out.println("DistanceStoreTest OK");
+    }
+
+    private static int[][] randomMatrix(int n, int min, int max, SplittableRandom random) {
+        int[][] matrix = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                matrix[i][j] = matrix[j][i] = (int) random.nextLong(min, (long) max + 1);
+            }
+        }
+        // Make sure both ends of the range occur, so the width is the one for the whole range
+        matrix[0][1] = matrix[1][0] = min;
+        matrix[0][2] = matrix[2][0] = max;
+        return matrix;
+    }
+}
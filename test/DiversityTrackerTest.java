@@ -0,0 +1,105 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Checks DiversityTracker against a recomputation from scratch while tours are added and removed at random.
+ * The churn empties and refills probe runs of the edge table, so it exercises the backward-shift deletion and the resizes.
+ */
+public class DiversityTrackerTest {
+    public static void main(String[] args) {
+        // Clones have no diversity, tours without a shared edge have full diversity
+        List<Integer> tour = Arrays.asList(1, 2, 3, 4, 5);
+        DiversityTracker clones = new DiversityTracker(5);
+        for (int i = 0; i < 4; i++) {
+            clones.add(tour);
+        }
+        Checks.close(0, clones.entropy(), "entropy of clones");
+        Checks.close(0, clones.edgeDistance(), "edge distance of clones");
+        DiversityTracker disjoint = new DiversityTracker(5);
+        disjoint.add(tour);
+        disjoint.add(Arrays.asList(1, 3, 5, 2, 4));
+        Checks.close(1, disjoint.entropy(), "entropy of edge-disjoint tours");
+        Checks.close(1, disjoint.edgeDistance(), "edge distance of edge-disjoint tours");
+        // The same cycle in reverse travels the same undirected edges
+        disjoint.remove(Arrays.asList(5, 4, 3, 2, 1));
+        Checks.equal(5, disjoint.getDistinctEdges(), "distinct edges after removing the reversed tour");
+
+        int cities = 40;
+        Random random = new Random(3);
+        DiversityTracker tracker = new DiversityTracker(cities);
+        List<List<Integer>> population = new ArrayList<>();
+        for (int step = 0; step < 3000; step++) {
+            if (population.isEmpty() || (population.size() < 30 && random.nextBoolean())) {
+                List<Integer> added = randomTour(cities, random);
+                population.add(added);
+                tracker.add(added);
+            } else {
+                tracker.remove(population.remove(random.nextInt(population.size())));
+            }
+            compare(population, tracker, "step " + step);
+        }
+        for (List<Integer> removed : population) {
+            tracker.remove(removed);
+        }
+        Checks.equal(0, tracker.size(), "tours after removing all");
+        Checks.equal(0, tracker.getDistinctEdges(), "distinct edges after removing all");
+        Checks.throwsException(IllegalStateException.class, () -> tracker.remove(tour), "removing a tour that was not added");
+        System.out.println("DiversityTrackerTest OK");
+    }
+
+    private static void compare(List<List<Integer>> population, DiversityTracker tracker, String when) {
+        Map<Long, Integer> counts = new HashMap<>();
+        List<Set<Long>> edgeSets = new ArrayList<>();
+        for (List<Integer> tour : population) {
+            Set<Long> edges = new HashSet<>();
+            for (int i = 0; i < tour.size(); i++) {
+                int a = tour.get(i), b = tour.get((i + 1) % tour.size());
+                long edge = (long) Math.min(a, b) << 32 | Math.max(a, b);
+                edges.add(edge);
+                counts.merge(edge, 1, Integer::sum);
+            }
+            edgeSets.add(edges);
+        }
+        Checks.equal(population.size(), tracker.size(), when + ": tours");
+        Checks.equal(counts.size(), tracker.getDistinctEdges(), when + ": distinct edges");
+        int tours = population.size();
+        if (tours < 2) {
+            return;
+        }
+
+        int length = population.get(0).size();
+        double edges = (double) tours * length;
+        double entropy = 0;
+        for (int count : counts.values()) {
+            entropy -= count / edges * Math.log(count / edges);
+        }
+        double scaled = Math.max(0, Math.min(1, (entropy - Math.log(length)) / Math.log(tours)));
+        Checks.close(scaled, tracker.entropy(), when + ": entropy");
+
+        double distance = 0;
+        for (int i = 0; i < tours; i++) {
+            for (int j = i + 1; j < tours; j++) {
+                Set<Long> shared = new HashSet<>(edgeSets.get(i));
+                shared.retainAll(edgeSets.get(j));
+                distance += 1 - (double) shared.size() / length;
+            }
+        }
+        Checks.close(distance / (tours * (tours - 1) / 2.0), tracker.edgeDistance(), when + ": edge distance");
+    }
+
+    private static List<Integer> randomTour(int cities, Random random) {
+        List<Integer> tour = new ArrayList<>();
+        for (int city = 1; city <= cities; city++) {
+            tour.add(city);
+        }
+        Collections.shuffle(tour, random);
+        return tour;
+    }
+}
@@ -0,0 +1,73 @@
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Checks HeldKarpBound against brute force: on small random instances (symmetric and asymmetric) the bound never
+ * exceeds the optimum and is close to it. Also checks pausing and resuming the background computation.
+ */
+public class HeldKarpBoundTest {
+    public static void main(String[] args) throws InterruptedException {
+        SplittableRandom random = new SplittableRandom(5);
+        double totalGap = 0;
+        int instances = 0;
+        for (int n = 3; n <= 9; n++) {
+            for (int i = 0; i < 6; i++) {
+                boolean symmetric = i % 2 == 0;
+                int[][] distances = randomMatrix(n, symmetric, random);
+                int optimum = optimum(distances);
+                double bound = new HeldKarpBound(distances, 5000).compute();
+                Checks.check(bound <= optimum, "bound " + bound + " above the optimum " + optimum + " for " + n + " cities");
+                Checks.check(bound > 0, "no bound for " + n + " cities");
+                if (symmetric) {
+                    totalGap += HeldKarpBound.gap(optimum, bound);
+                    instances++;
+                }
+            }
+        }
+        Checks.check(totalGap / instances < 0.05, "mean gap " + totalGap / instances + " on symmetric instances");
+
+        // On the generated 1..100 instances the 1-tree bound is usually tight
+        int[][] generated = new DataGenerator().generateDistances(9, new SplittableRandom(1));
+        Checks.close(optimum(generated), new HeldKarpBound(generated, 5000).compute(), "bound of a generated instance");
+        Checks.close(10, new HeldKarpBound(new int[][] {{0, 5}, {5, 0}}, 10).compute(), "bound of two cities");
+        Checks.check(HeldKarpBound.gap(100, 0) == Double.POSITIVE_INFINITY, "gap without a bound");
+
+        // A stopped background run is only paused: resuming it reaches the same bound as one uninterrupted run
+        int[][] large = new DataGenerator().generateDistances(200, new SplittableRandom(2));
+        double uninterrupted = new HeldKarpBound(large, 2000).compute();
+        HeldKarpBound paused = new HeldKarpBound(large, 2000);
+        Thread thread = paused.startInBackground();
+        Checks.check(thread == paused.startInBackground(), "a second start while running starts another thread");
+        paused.stop();
+        thread.join();
+        Checks.check(!paused.isFinished(), "a stopped bound counts as finished");
+        paused.startInBackground().join();
+        Checks.check(paused.isFinished(), "the resumed bound did not finish");
+        Checks.close(uninterrupted, paused.getBound(), "bound after pausing and resuming");
+        Checks.check(paused.startInBackground() == null, "a finished bound started again");
+        System.out.println("HeldKarpBoundTest OK");
+    }
+
+    private static int optimum(int[][] distances) {
+        BruteForce bruteForce = new BruteForce(distances);
+        bruteForce.setVerbose(false);
+        List<Integer> tour = bruteForce.solve();
+        int length = 0;
+        for (int i = 0; i < tour.size(); i++) {
+            length += distances[tour.get(i) - 1][tour.get((i + 1) % tour.size()) - 1];
+        }
+        return length;
+    }
+
+    private static int[][] randomMatrix(int n, boolean symmetric, SplittableRandom random) {
+        int[][] matrix = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i != j) {
+                    matrix[i][j] = symmetric && j < i ? matrix[j][i] : random.nextInt(1, 101);
+                }
+            }
+        }
+        return matrix;
+    }
+}
@@ -0,0 +1,43 @@
+import java.util.SplittableRandom;
+
+/**
+ * Checks IndexedHeap against a linear scan: the top after building and after every in-place key change, for both orders.
+ */
+public class IndexedHeapTest {
+    public static void main(String[] args) {
+        for (boolean max : new boolean[] {true, false}) {
+            SplittableRandom random = new SplittableRandom(max ? 1 : 2);
+            for (int size = 1; size <= 64; size++) {
+                int[] keys = random.ints(size, 0, 20).toArray();
+                IndexedHeap heap = new IndexedHeap(keys, max);
+                Checks.equal(size, heap.size(), "size");
+                Checks.equal(extreme(keys, max), keys[heap.top()], "top after building " + size + " slots");
+                for (int change = 0; change < 200; change++) {
+                    int slot = random.nextInt(size);
+                    keys[slot] = random.nextInt(-5, 25);
+                    heap.update(slot);
+                    Checks.equal(extreme(keys, max), keys[heap.top()], "top after changing slot " + slot);
+                }
+            }
+        }
+
+        // The steady-state use: the worst (largest) key is replaced by a smaller one until all keys are small
+        int[] lengths = {50, 40, 90, 70, 60};
+        IndexedHeap worst = new IndexedHeap(lengths, true);
+        for (int replacement = 10; replacement < 15; replacement++) {
+            int slot = worst.top();
+            lengths[slot] = replacement;
+            worst.update(slot);
+        }
+        Checks.equal(14, lengths[worst.top()], "worst after replacing every slot");
+        System.out.println("IndexedHeapTest OK");
+    }
+
+    private static int extreme(int[] keys, boolean max) {
+        int extreme = keys[0];
+        for (int key : keys) {
+            extreme = max ? Math.max(extreme, key) : Math.min(extreme, key);
+        }
+        return extreme;
+    }
+}
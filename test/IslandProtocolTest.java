@@ -0,0 +1,186 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Checks the framing of IslandProtocol: messages survive being split at every byte and packed into one buffer,
+ * invalid sizes are rejected, and a blocking read tells a clean close between frames from one within a frame.
+ * The distances of a job arrive intact over a socket at every store width and as a full matrix, also when they
+ * take several frames.
+ */
+public class IslandProtocolTest {
+    public static void main(String[] args) throws Exception {
+        int[] tour = {2, 3, 1};
+        ByteBuffer[] frames = {
+                IslandProtocol.hello(),
+                IslandProtocol.job(5, 42L, 1500, 60, 200, 3, IslandProtocol.TRIANGLE, 2, -7, 99),
+                IslandProtocol.tour(IslandProtocol.TOUR, 14, tour),
+                IslandProtocol.stop()
+        };
+        ByteBuffer stream = ByteBuffer.allocate(Arrays.stream(frames).mapToInt(ByteBuffer::remaining).sum());
+        for (ByteBuffer frame : frames) {
+            stream.put(frame.duplicate());
+        }
+        byte[] bytes = stream.array();
+
+        // Delivered one byte at a time, a frame appears exactly when its last byte has arrived
+        ByteBuffer in = ByteBuffer.allocate(bytes.length);
+        int received = 0;
+        int nextEnd = frames[0].remaining();
+        for (int i = 0; i < bytes.length; i++) {
+            in.put(bytes[i]);
+            ByteBuffer frame = IslandProtocol.nextFrame(in);
+            if (i + 1 < nextEnd) {
+                Checks.check(frame == null, "frame " + received + " taken before its last byte");
+                continue;
+            }
+            Checks.check(frame != null, "frame " + received + " not taken after its last byte");
+            checkFrame(received, frame, tour);
+            if (++received < frames.length) {
+                nextEnd += frames[received].remaining();
+            }
+        }
+        Checks.equal(frames.length, received, "frames taken from the byte stream");
+
+        // Delivered all at once, the frames come out one by one
+        in = ByteBuffer.allocate(bytes.length).put(bytes);
+        for (int f = 0; f < frames.length; f++) {
+            checkFrame(f, IslandProtocol.nextFrame(in), tour);
+        }
+        Checks.check(IslandProtocol.nextFrame(in) == null, "frame taken from an empty buffer");
+
+        for (int size : new int[] {0, -1, IslandProtocol.MAX_FRAME_BYTES + 1}) {
+            ByteBuffer garbage = ByteBuffer.allocate(8).putInt(size).putInt(0);
+            Checks.throwsException(IOException.class, () -> IslandProtocol.nextFrame(garbage), "frame size " + size);
+        }
+
+        Checks.check(IslandProtocol.isPermutation(tour, 3), "valid tour rejected");
+        Checks.check(!IslandProtocol.isPermutation(new int[] {1, 1, 2}, 3), "tour with a repeated city accepted");
+        Checks.check(!IslandProtocol.isPermutation(new int[] {0, 1, 2}, 3), "tour numbered from 0 accepted");
+        Checks.check(!IslandProtocol.isPermutation(new int[] {1, 2}, 3), "short tour accepted");
+
+        // Over a socket: whole frames, then an end of stream between frames, then one within a frame
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            try (SocketChannel client = SocketChannel.open(server.getLocalAddress()); SocketChannel peer = server.accept()) {
+                IslandProtocol.writeFully(client, frames[2].duplicate());
+                IslandProtocol.writeFully(client, frames[0].duplicate());
+                client.shutdownOutput();
+                checkFrame(2, IslandProtocol.readFrame(peer), tour);
+                checkFrame(0, IslandProtocol.readFrame(peer), tour);
+                Checks.check(IslandProtocol.readFrame(peer) == null, "no end of stream after a clean close");
+            }
+            try (SocketChannel client = SocketChannel.open(server.getLocalAddress()); SocketChannel peer = server.accept()) {
+                ByteBuffer truncated = frames[1].duplicate();
+                truncated.limit(truncated.limit() - 3);
+                IslandProtocol.writeFully(client, truncated);
+                client.shutdownOutput();
+                Checks.throwsException(EOFException.class, () -> IslandProtocol.readFrame(peer), "close within a frame");
+            }
+        }
+        // Distances at each width; 3000 cities take two frames at one byte per pair and more at wider ones
+        SplittableRandom random = new SplittableRandom(11);
+        for (int[] range : new int[][] {{1, 100}, {-500, 60000}, {0, 1 << 20}}) {
+            for (int n : new int[] {1, 2, 50, 3000}) {
+                DistanceStore sent = DistanceStore.allocate(n, range[0], range[1], 88888);
+                for (int i = 0; i < n; i++) {
+                    for (int j = i + 1; j < n; j++) {
+                        sent.set(i, j, random.nextInt(range[0], range[1] + 1));
+                    }
+                }
+                List<ByteBuffer> storeFrames = IslandProtocol.distances(sent);
+                long cellBytes = (long) sent.pairs() * sent.width();
+                Checks.equal((cellBytes + IslandProtocol.CHUNK_BYTES - 1) / IslandProtocol.CHUNK_BYTES, storeFrames.size(), "frames for " + n + " cities");
+                DistanceStore receivedStore = exchange(storeFrames,
+                        channel -> IslandProtocol.readStore(channel, n, 88888, sent.getOffset(), sent.width()));
+                Checks.equal(sent.width(), receivedStore.width(), "width of the received store");
+                for (int k = 0; k < 1000 && n > 1; k++) {
+                    int i = random.nextInt(n), j = random.nextInt(n);
+                    Checks.equal(sent.get(i, j), receivedStore.get(i, j), "received distance " + i + ", " + j);
+                }
+            }
+        }
+        int[][] asymmetric = new int[1100][1100];
+        for (int[] row : asymmetric) {
+            for (int j = 0; j < row.length; j++) {
+                row[j] = random.nextInt();
+            }
+        }
+        List<ByteBuffer> matrixFrames = IslandProtocol.distances(asymmetric);
+        Checks.equal(2, matrixFrames.size(), "frames of a 1100 x 1100 matrix");
+        int[][] receivedMatrix = exchange(matrixFrames, channel -> IslandProtocol.readMatrix(channel, asymmetric.length));
+        Checks.check(Arrays.deepEquals(asymmetric, receivedMatrix), "received matrix");
+        // A frame that is not DISTANCES before all distances arrived is an error, not a truncated instance
+        Checks.throwsException(IOException.class,
+                () -> exchange(List.of(IslandProtocol.stop()), channel -> IslandProtocol.readMatrix(channel, 2)), "STOP among the distances");
+        System.out.println("IslandProtocolTest OK");
+    }
+
+    /** Reads something sent over a blocking channel. */
+    interface Reader<T> {
+        T read(SocketChannel channel) throws IOException;
+    }
+
+    // Send the frames from a second thread over a loopback connection and read them on this one
+    private static <T> T exchange(List<ByteBuffer> frames, Reader<T> reader) throws Exception {
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            try (SocketChannel client = SocketChannel.open(server.getLocalAddress()); SocketChannel peer = server.accept()) {
+                Thread sender = new Thread(() -> {
+                    try {
+                        for (ByteBuffer frame : frames) {
+                            IslandProtocol.writeFully(client, frame.duplicate());
+                        }
+                        client.shutdownOutput();
+                    } catch (IOException e) {
+                        // the reader fails on the missing data
+                    }
+                });
+                sender.start();
+                try {
+                    return reader.read(peer);
+                } finally {
+                    sender.join();
+                }
+            }
+        }
+    }
+
+    private static void checkFrame(int index, ByteBuffer frame, int[] tour) {
+        byte type = frame.get();
+        switch (index) {
+            case 0:
+                Checks.equal(IslandProtocol.HELLO, type, "type of HELLO");
+                Checks.equal(IslandProtocol.VERSION, frame.getInt(), "protocol version");
+                break;
+            case 1:
+                Checks.equal(IslandProtocol.JOB, type, "type of JOB");
+                Checks.equal(5, frame.getInt(), "worker id");
+                Checks.equal(42L, frame.getLong(), "seed");
+                Checks.equal(1500, frame.getLong(), "time limit");
+                Checks.equal(60, frame.getInt(), "population size");
+                Checks.equal(200, frame.getInt(), "migration interval");
+                Checks.equal(3, frame.getInt(), "cities");
+                Checks.equal(IslandProtocol.TRIANGLE, frame.get(), "layout");
+                Checks.equal(2, frame.getInt(), "width");
+                Checks.equal(-7, frame.getInt(), "offset");
+                Checks.equal(99, frame.getInt(), "diagonal");
+                break;
+            case 2:
+                Checks.equal(IslandProtocol.TOUR, type, "type of TOUR");
+                Checks.equal(14, IslandProtocol.tourLength(frame), "tour length");
+                Checks.check(Arrays.equals(tour, IslandProtocol.readTour(frame)), "tour");
+                break;
+            default:
+                Checks.equal(IslandProtocol.STOP, type, "type of STOP");
+        }
+        Checks.check(!frame.hasRemaining(), "bytes left after frame " + index);
+    }
+}
@@ -0,0 +1,80 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Checks the configuration object, the solvers the tuner builds from it, and short tuning runs of both solvers:
+ * one result per band at the final budget, scores within the penalty, the defaults as the only candidate, and the
+ * optima of small instances stored in the result cache.
+ */
+public class ParameterTunerTest {
+    public static void main(String[] args) throws Exception {
+        SolverConfig defaults = SolverConfig.defaults();
+        SolverConfig changed = defaults.withCrossoverProbability(0.6).withMutationProbability(0.2).withAlpha(2).withBeta(3)
+                .withEvaporation(0.3).withQ(100).withNumAntFactor(1.2).withRandomSelectionProbability(0.02);
+        Checks.check(Arrays.equals(new double[] {0.6, 0.2, 2, 3, 0.3, 100, 1.2, 0.02}, values(changed)), "changed configuration " + changed);
+        Checks.check(Arrays.equals(values(SolverConfig.defaults()), values(defaults)), "with* changed the defaults");
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        Path directory = Files.createTempDirectory("parameter-tuner-test");
+        Path file = directory.resolve("optima.tsv");
+        try {
+            Checks.throwsException(IllegalArgumentException.class, () -> new ParameterTuner("SA", 1, pool), "unknown solver");
+
+            // The same stream gives the same tour, in the numbering from 0
+            TSPInstance instance = TSPInstance.of("test", new DataGenerator().generateDistances(10, new SplittableRandom(32)));
+            for (String kind : new String[] {"GA", "ACO"}) {
+                SolverResult first = ParameterTuner.newSolver(kind, changed, instance, new SplittableRandom(7))
+                        .solve(TerminationCriteria.iterations(30));
+                SolverResult second = ParameterTuner.newSolver(kind, changed, instance, new SplittableRandom(7))
+                        .solve(TerminationCriteria.iterations(30));
+                Checks.check(ParameterTuner.newSolver(kind, changed, instance, new SplittableRandom(7)).name().equals(kind), kind + " solver name");
+                int[] sorted = first.getTour().clone();
+                Arrays.sort(sorted);
+                Checks.check(Arrays.equals(new int[] {0, 1, 2, 3, 4, 5, 6, 7, 8, 9}, sorted), kind + " tour " + Arrays.toString(first.getTour()));
+                Checks.check(Arrays.equals(first.getTour(), second.getTour()), kind + " runs with the same stream differ");
+            }
+
+            ResultCache cache = ResultCache.open(file);
+            ParameterTuner genetic = new ParameterTuner("GA", 32, pool);
+            genetic.setResultCache(cache);
+            // Three candidates take two halvings, so the final budget is 4 times the base budget
+            List<ParameterTuner.Result> results = genetic.tune(new int[] {6, 12}, 2, 3, 10);
+            Checks.equal(2, results.size(), "GA results");
+            for (int band = 0; band < 2; band++) {
+                ParameterTuner.Result result = results.get(band);
+                Checks.equal(band == 0 ? 6 : 12, result.getCities(), "cities of band " + band);
+                Checks.equal(40, result.getBudgetMillis(), "final budget of band " + band);
+                checkScore(result.getBestMillis(), result, "best");
+                checkScore(result.getDefaultMillis(), result, "defaults");
+            }
+            // Only the 6-city instances are small enough for brute force
+            Checks.equal(2, cache.size(), "optima in the result cache");
+
+            ParameterTuner ants = new ParameterTuner("ACO", 33, pool);
+            ParameterTuner.Result only = ants.tune(new int[] {8}, 2, 1, 20).get(0);
+            Checks.check(Arrays.equals(values(defaults), values(only.getBest())), "single candidate is not the defaults: " + only.getBest());
+            Checks.close(only.getDefaultMillis(), only.getBestMillis(), "score of the defaults as the only candidate");
+            checkScore(only.getBestMillis(), only, "ACO");
+        } finally {
+            pool.shutdown();
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(directory);
+        }
+        System.out.println("ParameterTunerTest OK");
+    }
+
+    // A run that misses the target is charged twice the budget, so no mean can exceed that
+    private static void checkScore(double millis, ParameterTuner.Result result, String label) {
+        Checks.check(millis >= 0 && millis <= 2.0 * result.getBudgetMillis(), label + " score out of range: " + result);
+    }
+
+    private static double[] values(SolverConfig config) {
+        return new double[] {config.getCrossoverProbability(), config.getMutationProbability(), config.getAlpha(), config.getBeta(),
+                config.getEvaporation(), config.getQ(), config.getNumAntFactor(), config.getRandomSelectionProbability()};
+    }
+}
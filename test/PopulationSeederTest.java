@@ -0,0 +1,125 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Checks that the seeded tours are distinct permutations in the GA numbering, reproducible from the seed despite the
+ * parallel construction, and far shorter than random tours. Greedy edge must find the perimeter of cities on a circle.
+ */
+public class PopulationSeederTest {
+    public static void main(String[] args) {
+        Checks.throwsException(IllegalArgumentException.class, () -> new PopulationSeeder(1.5), "fraction above 1");
+        Checks.throwsException(IllegalArgumentException.class, () -> new PopulationSeeder(-0.1), "negative fraction");
+
+        // Cities on a circle: every chord is longer than the sides of the polygon, so greedy edge takes the sides only
+        int n = 30;
+        double[][] circle = new double[n][];
+        for (int i = 0; i < n; i++) {
+            double angle = 2 * Math.PI * i / n;
+            circle[i] = new double[] {1000 * Math.cos(angle), 1000 * Math.sin(angle)};
+        }
+        int[][] circleDistances = distances(circle);
+        int[] greedy = PopulationSeeder.greedyEdge(circleDistances, 0, new SplittableRandom(30));
+        checkPermutation(greedy, 0, "greedy edge tour");
+        Checks.equal(length(circleDistances, perimeter(n)), length(circleDistances, greedy), "greedy edge tour on a circle");
+
+        SplittableRandom random = new SplittableRandom(30);
+        double[][] points = new double[200][];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new double[] {random.nextDouble(0, 1000), random.nextDouble(0, 1000)};
+        }
+        int[][] distances = distances(points);
+        checkPermutation(PopulationSeeder.nearestNeighbor(distances, random.split()), 0, "nearest neighbor tour");
+        checkPermutation(PopulationSeeder.greedyEdge(distances, 0.05, random.split()), 0, "noisy greedy edge tour");
+        checkPermutation(PopulationSeeder.hilbert(points, random.split()), 0, "Hilbert curve tour");
+
+        long randomLength = 0;
+        List<Integer> shuffled = new ArrayList<>();
+        for (int city = 1; city <= points.length; city++) {
+            shuffled.add(city);
+        }
+        for (int t = 0; t < 20; t++) {
+            for (int i = shuffled.size() - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                shuffled.set(i, shuffled.set(j, shuffled.get(i)));
+            }
+            randomLength += length(distances, shuffled);
+        }
+        randomLength /= 20;
+
+        for (boolean withCoordinates : new boolean[] {false, true}) {
+            PopulationSeeder seeder = new PopulationSeeder(0.25);
+            if (withCoordinates) {
+                seeder.setCoordinates(points);
+            }
+            String label = withCoordinates ? "with coordinates" : "without coordinates";
+            List<List<Integer>> tours = seeder.seed(40, distances, new SplittableRandom(31));
+            Checks.check(!tours.isEmpty() && tours.size() <= 10, label + ": " + tours.size() + " tours for a quarter of 40");
+            Checks.equal(tours.size(), new HashSet<>(tours).size(), label + ": distinct tours");
+            for (List<Integer> tour : tours) {
+                checkPermutation(tour.stream().mapToInt(Integer::intValue).toArray(), 1, label + ": seeded tour");
+                // Random tours of 200 uniform cities are about ten times longer than good ones
+                Checks.check(length(distances, tour) * 3 < randomLength,
+                        label + ": seeded tour of length " + length(distances, tour) + ", random tours " + randomLength);
+            }
+            Checks.check(tours.equals(seeder.seed(40, distances, new SplittableRandom(31))), label + ": seeding is not reproducible");
+        }
+        Checks.check(new PopulationSeeder(0).seed(40, distances, random).isEmpty(), "tours with a fraction of 0");
+        Checks.check(new PopulationSeeder(1).seed(40, new int[][] {{0, 1}, {1, 0}}, random).isEmpty(), "tours for 2 cities");
+
+        // The GA starts from the seeded tours and fills the rest of the population with distinct random ones
+        TSPGeneticAlgorithm tspGeneticAlgorithm = new TSPGeneticAlgorithm(SolverConfig.defaults(), distances);
+        tspGeneticAlgorithm.setRandom(new SplittableRandom(32));
+        PopulationSeeder seeder = new PopulationSeeder(0.5);
+        tspGeneticAlgorithm.setSeeder(seeder);
+        List<List<Integer>> population = tspGeneticAlgorithm.initializePopulation(20, points.length);
+        List<List<Integer>> seeded = seeder.seed(20, distances, new SplittableRandom(32));
+        Checks.equal(20, population.size(), "population size");
+        Checks.equal(20, new HashSet<>(population).size(), "distinct individuals");
+        Checks.check(population.subList(0, seeded.size()).equals(seeded), "the population does not start with the seeded tours");
+        System.out.println("PopulationSeederTest OK");
+    }
+
+    private static int[][] distances(double[][] points) {
+        int[][] distances = new int[points.length][points.length];
+        for (int i = 0; i < points.length; i++) {
+            for (int j = 0; j < points.length; j++) {
+                distances[i][j] = (int) Math.round(Math.hypot(points[i][0] - points[j][0], points[i][1] - points[j][1]));
+            }
+        }
+        return distances;
+    }
+
+    private static int[] perimeter(int n) {
+        int[] tour = new int[n];
+        for (int i = 0; i < n; i++) {
+            tour[i] = i;
+        }
+        return tour;
+    }
+
+    private static void checkPermutation(int[] tour, int first, String label) {
+        boolean[] seen = new boolean[tour.length];
+        for (int city : tour) {
+            Checks.check(city >= first && city < first + tour.length && !seen[city - first], label + " is not a permutation");
+            seen[city - first] = true;
+        }
+    }
+
+    private static long length(int[][] distances, int[] tour) {
+        long length = 0;
+        for (int i = 0; i < tour.length; i++) {
+            length += distances[tour[i]][tour[(i + 1) % tour.length]];
+        }
+        return length;
+    }
+
+    private static long length(int[][] distances, List<Integer> tour) {
+        long length = 0;
+        for (int i = 0; i < tour.size(); i++) {
+            length += distances[tour.get(i) - 1][tour.get((i + 1) % tour.size()) - 1];
+        }
+        return length;
+    }
+}
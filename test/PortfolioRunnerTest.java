@@ -0,0 +1,117 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks cancellation and the early end of a race: a cancel that arrives before a solve starts still stops it,
+ * reset withdraws it, and a race won at once by a proven optimum stops every other solver instead of leaving it
+ * running to its budget.
+ */
+public class PortfolioRunnerTest {
+    // Far longer than any check may take: a solver that runs into it was not stopped
+    private static final long LONG_BUDGET_MILLIS = 60_000;
+
+    public static void main(String[] args) throws Exception {
+        // 14 cities are far too many for brute force to finish, so only a cancel can end it
+        int[][] distances = new DataGenerator().generateDistances(14, new SplittableRandom(8));
+        for (Solver solver : portfolio(distances, null)) {
+            solver.cancel();
+            long start = System.nanoTime();
+            solver.solve(TerminationCriteria.timeLimit(LONG_BUDGET_MILLIS));
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            Checks.check(millis < 2000, solver.name() + " cancelled before solving ran for " + millis + " ms");
+        }
+        for (Solver solver : portfolio(distances, null).subList(0, 2)) {
+            solver.cancel();
+            solver.reset();
+            SolverResult result = solver.solve(TerminationCriteria.iterations(20));
+            Checks.check(result != null && result.getTour().length == 14, solver.name() + " found no tour after reset");
+        }
+
+        // Brute force takes the optimum from the cache at once; the runner must then stop the others, even those
+        // that had not started yet when it cancelled them
+        int[][] small = new DataGenerator().generateDistances(8, new SplittableRandom(9));
+        SolverResult optimum = new ExactSolver(new BruteForce(small)).solve(TerminationCriteria.iterations(0));
+        Path directory = Files.createTempDirectory("portfolio-runner-test");
+        Path file = directory.resolve("optima.tsv");
+        try {
+            ResultCache cache = ResultCache.open(file);
+            cache.put(small, optimum);
+            int races = 3;
+            CountDownLatch finished = new CountDownLatch(3 * races);
+            List<Solver> solvers = new ArrayList<>();
+            for (Solver solver : portfolio(small, cache)) {
+                solvers.add(new Finishing(solver, finished));
+            }
+            PortfolioRunner runner = new PortfolioRunner(solvers);
+            for (int race = 0; race < races; race++) {
+                long start = System.nanoTime();
+                SolverResult best = runner.race(TerminationCriteria.timeLimit(LONG_BUDGET_MILLIS));
+                Checks.check(best != null && best.isOptimal(), "race " + race + " did not end on the optimum: " + best);
+                Checks.close(optimum.getLength(), best.getLength(), "length of the race winner");
+                Checks.check(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "race " + race + " did not stop on the optimum");
+            }
+            Checks.check(finished.await(5, TimeUnit.SECONDS), finished.getCount() + " solves still running after the races");
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(directory);
+        }
+        System.out.println("PortfolioRunnerTest OK");
+    }
+
+    private static List<Solver> portfolio(int[][] distances, ResultCache cache) {
+        TSPGeneticAlgorithm tspGeneticAlgorithm = new TSPGeneticAlgorithm(SolverConfig.defaults(), distances);
+        tspGeneticAlgorithm.setVerbose(false);
+        AntAlgo antAlgo = new AntAlgo();
+        antAlgo.setGraph(TSPInstance.of("test", distances).getGraph());
+        BruteForce bruteForce = new BruteForce(distances);
+        bruteForce.setResultCache(cache);
+        return Arrays.asList(new GeneticSolver(tspGeneticAlgorithm, 30, distances.length), new AntSolver(antAlgo),
+                new ExactSolver(bruteForce));
+    }
+
+    // Counts the solves that have returned, over all races
+    private static final class Finishing implements Solver {
+        private final Solver solver;
+        private final CountDownLatch finished;
+
+        Finishing(Solver solver, CountDownLatch finished) {
+            this.solver = solver;
+            this.finished = finished;
+        }
+
+        @Override
+        public String name() {
+            return solver.name();
+        }
+
+        @Override
+        public SolverResult solve(TerminationCriteria criteria) {
+            try {
+                return solver.solve(criteria);
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        @Override
+        public SolverResult bestSoFar() {
+            return solver.bestSoFar();
+        }
+
+        @Override
+        public void cancel() {
+            solver.cancel();
+        }
+
+        @Override
+        public void reset() {
+            solver.reset();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Checks the warm start after distance changes: after a random batch of edge updates, every cached length of the GA
+ * population and the best ACO tour equal a full recomputation with the new distances. The GA runs on a matrix and on a
+ * symmetric store, where the second update of a pair finds the edge already changed. An invalid batch changes nothing.
+ */
+public class ReoptimizeTest {
+    // Stops before the first iteration, so the lengths are checked as the re-scoring left them
+    private static final TerminationCriteria NO_ITERATION = TerminationCriteria.iterations(1).withTargetLength(Double.MAX_VALUE);
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) {
+        SplittableRandom random = new SplittableRandom(35);
+        int n = 12;
+
+        int[][] asymmetric = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                asymmetric[i][j] = i == j ? 88888 : random.nextInt(1, 101);
+            }
+        }
+        int[][] original = copy(asymmetric);
+        checkGenetic(new TSPGeneticAlgorithm(SolverConfig.defaults(), asymmetric), copy(asymmetric), false, random, "matrix");
+        Checks.check(Arrays.deepEquals(original, asymmetric), "reoptimize changed the caller's matrix");
+
+        int[][] symmetric = new DataGenerator().generateDistances(n, random.split());
+        SolverConfig config = SolverConfig.defaults();
+        checkGenetic(new TSPGeneticAlgorithm(config.getCrossoverProbability(), config.getMutationProbability(),
+                DistanceStore.of(symmetric)), symmetric, true, random, "store");
+
+        double[][] graph = TSPInstance.of("test", asymmetric).getGraph();
+        double[][] graphBefore = copy(graph);
+        checkAnts(graph, copy(graph), random);
+        Checks.check(Arrays.deepEquals(graphBefore, graph), "reoptimize changed the caller's graph");
+        System.out.println("ReoptimizeTest OK");
+    }
+
+    private static void checkGenetic(TSPGeneticAlgorithm tspGeneticAlgorithm, int[][] expected, boolean symmetric,
+            SplittableRandom random, String label) {
+        int n = expected.length;
+        tspGeneticAlgorithm.setRandom(random.split());
+        TSPSolver solver = new TSPSolver(tspGeneticAlgorithm);
+        solver.setVerbose(false);
+        Checks.throwsException(IllegalStateException.class, () -> solver.reoptimize(List.of(), NO_ITERATION),
+                label + ", reoptimize before a solve");
+        solver.solveSteadyState(TerminationCriteria.iterations(20), 30, n);
+        for (int round = 0; round < ROUNDS; round++) {
+            List<EdgeUpdate> batch = randomBatch(expected, symmetric, random);
+            for (EdgeUpdate update : batch) {
+                expected[update.getFrom()][update.getTo()] = update.getWeight();
+            }
+            solver.reoptimize(batch, NO_ITERATION);
+            checkPopulation(solver, tspGeneticAlgorithm, expected, label + ", round " + round);
+            // Evolve on the new distances, so the next batch also meets tours indexed since
+            solver.reoptimize(List.of(), TerminationCriteria.iterations(5));
+            checkPopulation(solver, tspGeneticAlgorithm, expected, label + ", round " + round + " evolved");
+        }
+
+        int[] before = solver.getSteadyState().getFitnessValues().clone();
+        for (EdgeUpdate invalid : invalidUpdates(n)) {
+            // The valid update in front of the invalid one must not be applied either
+            List<EdgeUpdate> batch = Arrays.asList(new EdgeUpdate(0, 1, 1000), invalid);
+            Checks.throwsException(IllegalArgumentException.class, () -> solver.reoptimize(batch, NO_ITERATION),
+                    label + ", invalid update " + invalid);
+            Checks.check(Arrays.equals(before, solver.getSteadyState().getFitnessValues()),
+                    label + ", lengths changed by the invalid update " + invalid);
+            checkPopulation(solver, tspGeneticAlgorithm, expected, label + ", after the invalid update " + invalid);
+        }
+    }
+
+    // Every cached length must match the distances held by the GA and a recomputation with the expected ones
+    private static void checkPopulation(TSPSolver solver, TSPGeneticAlgorithm tspGeneticAlgorithm, int[][] expected, String label) {
+        SteadyStatePopulation population = solver.getSteadyState();
+        int[] lengths = population.getFitnessValues();
+        int best = Integer.MAX_VALUE;
+        for (int slot = 0; slot < population.size(); slot++) {
+            List<Integer> tour = population.get(slot);
+            int length = 0;
+            for (int i = 0; i < tour.size(); i++) {
+                length += expected[tour.get(i) - 1][tour.get((i + 1) % tour.size()) - 1];
+            }
+            Checks.equal(length, lengths[slot], label + ", cached length of slot " + slot);
+            Checks.equal(length, tspGeneticAlgorithm.tourLength(tour), label + ", GA length of slot " + slot);
+            best = Math.min(best, length);
+        }
+        Checks.equal(best, population.getBestLength(), label + ", best length of the population");
+        Checks.close(best, solver.bestSoFar().getLength(), label + ", best so far");
+    }
+
+    private static void checkAnts(double[][] graph, double[][] expected, SplittableRandom random) {
+        int n = graph.length;
+        AntAlgo antAlgo = new AntAlgo();
+        antAlgo.setVerbose(false);
+        antAlgo.setRandom(random.split());
+        antAlgo.setGraph(graph);
+        Checks.throwsException(IllegalStateException.class, () -> antAlgo.reoptimize(List.of(), NO_ITERATION),
+                "ACO reoptimize before a solve");
+        antAlgo.solve(TerminationCriteria.iterations(10));
+        // The current weights, for the updates that keep them
+        int[][] weights = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                weights[i][j] = (int) expected[i][j];
+            }
+        }
+        for (int round = 0; round < ROUNDS; round++) {
+            List<EdgeUpdate> batch = randomBatch(weights, false, random);
+            for (EdgeUpdate update : batch) {
+                weights[update.getFrom()][update.getTo()] = update.getWeight();
+                expected[update.getFrom()][update.getTo()] = update.getWeight();
+            }
+            antAlgo.reoptimize(batch, NO_ITERATION);
+            checkBestTour(antAlgo, expected, "ACO round " + round);
+            // Ants measure their tours with the flattened graph, which must have followed the updates
+            antAlgo.reoptimize(List.of(), TerminationCriteria.iterations(5));
+            checkBestTour(antAlgo, expected, "ACO round " + round + " evolved");
+        }
+
+        int[] bestTour = antAlgo.bestTour.clone();
+        double bestLength = antAlgo.bestTourLength;
+        for (EdgeUpdate invalid : invalidUpdates(n)) {
+            List<EdgeUpdate> batch = Arrays.asList(new EdgeUpdate(bestTour[0], bestTour[1], 1000), invalid);
+            Checks.throwsException(IllegalArgumentException.class, () -> antAlgo.reoptimize(batch, NO_ITERATION),
+                    "ACO invalid update " + invalid);
+            Checks.check(Arrays.equals(bestTour, antAlgo.bestTour), "ACO best tour changed by the invalid update " + invalid);
+            Checks.close(bestLength, antAlgo.bestTourLength, "ACO best length after the invalid update " + invalid);
+        }
+        // Re-scoring again with no update shows whether the graph kept the valid update of the rejected batch
+        antAlgo.reoptimize(List.of(), NO_ITERATION);
+        checkBestTour(antAlgo, expected, "ACO after the invalid updates");
+    }
+
+    private static void checkBestTour(AntAlgo antAlgo, double[][] expected, String label) {
+        int[] tour = antAlgo.bestTour;
+        double length = 0;
+        for (int i = 0; i < tour.length; i++) {
+            length += expected[tour[i]][tour[(i + 1) % tour.length]];
+        }
+        Checks.close(length, antAlgo.bestTourLength, label + ", best tour length");
+        Checks.close(length, antAlgo.bestSoFar().getLength(), label + ", best so far");
+    }
+
+    // Up to 2n updates, some of them setting the current weight (a zero delta) and some repeating an edge of the batch
+    private static List<EdgeUpdate> randomBatch(int[][] current, boolean symmetric, SplittableRandom random) {
+        int n = current.length;
+        List<EdgeUpdate> batch = new ArrayList<>();
+        for (int k = random.nextInt(1, 2 * n + 1); k > 0; k--) {
+            int from = random.nextInt(n);
+            int to = (from + random.nextInt(1, n)) % n;
+            int weight = random.nextInt(4) == 0 ? current[from][to] : random.nextInt(1, 201);
+            if (symmetric) {
+                batch.addAll(EdgeUpdate.symmetric(from, to, weight));
+            } else {
+                batch.add(new EdgeUpdate(from, to, weight));
+            }
+        }
+        return batch;
+    }
+
+    private static List<EdgeUpdate> invalidUpdates(int n) {
+        return Arrays.asList(new EdgeUpdate(2, 2, 5), new EdgeUpdate(0, n, 5), new EdgeUpdate(-1, 3, 5));
+    }
+
+    private static int[][] copy(int[][] matrix) {
+        return Arrays.stream(matrix).map(int[]::clone).toArray(int[][]::new);
+    }
+
+    private static double[][] copy(double[][] matrix) {
+        return Arrays.stream(matrix).map(double[]::clone).toArray(double[][]::new);
+    }
+}
@@ -0,0 +1,95 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Checks ResultCache round trips through its file: entries survive reopening, are found by the matrix and not the
+ * array that holds it, damaged entries are ignored, and concurrent puts from one process all reach the store.
+ */
+public class ResultCacheTest {
+    public static void main(String[] args) throws Exception {
+        Path directory = Files.createTempDirectory("result-cache-test");
+        Path file = directory.resolve("optima.tsv");
+        try {
+            int[][] distances = new DataGenerator().generateDistances(7, new SplittableRandom(6));
+            SolverResult optimum = new ExactSolver(new BruteForce(distances)).solve(TerminationCriteria.iterations(0));
+            int[][] copy = Arrays.stream(distances).map(int[]::clone).toArray(int[][]::new);
+            Checks.check(ResultCache.fingerprint(distances).equals(ResultCache.fingerprint(copy)), "fingerprint depends on the array");
+            copy[0][1]++;
+            Checks.check(!ResultCache.fingerprint(distances).equals(ResultCache.fingerprint(copy)), "fingerprint ignores a value");
+
+            ResultCache cache = ResultCache.open(file);
+            Checks.check(cache.get(distances) == null, "entry in an empty cache");
+            cache.put(distances, optimum);
+            cache.put(distances, optimum);
+            Checks.equal(1, Files.readAllLines(file).size(), "lines after putting one instance twice");
+
+            ResultCache reopened = ResultCache.open(file);
+            SolverResult cached = reopened.get(Arrays.stream(distances).map(int[]::clone).toArray(int[][]::new));
+            Checks.check(cached != null, "entry lost on reopening");
+            Checks.check(cached.isOptimal(), "cached entry is not optimal");
+            Checks.close(optimum.getLength(), cached.getLength(), "cached length");
+            Checks.check(Arrays.equals(optimum.getTour(), cached.getTour()), "cached tour");
+            Checks.check(reopened.get(copy) == null, "entry found for another matrix");
+            Checks.close(optimum.getLength(), reopened.withTarget(TerminationCriteria.timeLimit(100), distances).getTargetLength(), "target");
+            Checks.close(0, reopened.withTarget(TerminationCriteria.timeLimit(100), copy).getTargetLength(), "target without entry");
+
+            // Only proven optima whose tour has the stated length are accepted
+            int[] tour = optimum.getTour();
+            Checks.throwsException(IllegalArgumentException.class,
+                    () -> cache.put(copy, new SolverResult("GA", tour, optimum.getLength(), false, 0)), "non-optimal result");
+            Checks.throwsException(IllegalArgumentException.class,
+                    () -> cache.put(copy, new SolverResult("GA", tour, optimum.getLength() - 1, true, 0)), "wrong length");
+
+            // Damaged lines are skipped, and an entry whose tour does not fit the matrix is treated as missing
+            int[][] other = new DataGenerator().generateDistances(5, new SplittableRandom(7));
+            String wrongTour = ResultCache.fingerprint(other) + "\t1\tBrute Force\t0,1,2,3,4" + System.lineSeparator();
+            Files.write(file, ("garbage" + System.lineSeparator() + "a\tb\tc\td" + System.lineSeparator() + wrongTour)
+                    .getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+            ResultCache damaged = ResultCache.open(file);
+            Checks.check(damaged.get(distances) != null, "entry lost next to damaged lines");
+            Checks.check(damaged.get(other) == null, "entry with a wrong length returned");
+
+            // Concurrent puts through two caches on the same file all reach the store once
+            Path shared = directory.resolve("shared.tsv");
+            ResultCache first = ResultCache.open(shared), second = ResultCache.open(shared);
+            ExecutorService pool = Executors.newFixedThreadPool(8);
+            List<Future<?>> puts = new ArrayList<>();
+            for (int k = 0; k < 40; k++) {
+                int[][] instance = {{0, k + 1, 2}, {k + 1, 0, 3}, {2, 3, 0}};
+                SolverResult result = new SolverResult("Brute Force", new int[] {0, 1, 2}, k + 6, true, 0);
+                ResultCache target = k % 2 == 0 ? first : second;
+                puts.add(pool.submit(() -> {
+                    target.put(instance, result);
+                    return null;
+                }));
+            }
+            for (Future<?> put : puts) {
+                put.get();
+            }
+            pool.shutdown();
+            Checks.equal(40, ResultCache.open(shared).size(), "entries after concurrent puts");
+            Checks.equal(40, Files.readAllLines(shared).size(), "lines after concurrent puts");
+
+            // A put that cannot write is not cached, so it is retried next time
+            ResultCache unwritable = ResultCache.open(directory.resolve("missing").resolve("optima.tsv"));
+            Checks.throwsException(IOException.class, () -> unwritable.put(distances, optimum), "put into a missing directory");
+            Checks.equal(0, unwritable.size(), "entries after a failed put");
+        } finally {
+            for (String name : new String[] {"optima.tsv", "shared.tsv"}) {
+                Files.deleteIfExists(directory.resolve(name));
+            }
+            Files.deleteIfExists(directory);
+        }
+        System.out.println("ResultCacheTest OK");
+    }
+}
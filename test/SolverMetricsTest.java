@@ -0,0 +1,114 @@
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import javax.management.ObjectName;
+
+/**
+ * Checks the counters, histogram quantiles, JMX export and dumps of SolverMetrics, updates from several threads at once,
+ * and that the GA and ACO record one generation per iteration. The metrics are switched on by this check itself,
+ * before any class reads -Dtsp.metrics.
+ */
+public class SolverMetricsTest {
+    public static void main(String[] args) throws Exception {
+        System.setProperty("tsp.metrics", "true");
+        Checks.check(SolverMetrics.ENABLED, "metrics not enabled");
+
+        SolverMetrics metrics = SolverMetrics.forSolver("test", "first", "second");
+        Checks.check(metrics == SolverMetrics.forSolver("test", "first", "second"), "a second instance for the same solver");
+        for (int i = 0; i < 3; i++) {
+            metrics.record(0, 1000);
+        }
+        metrics.record(0, 100_000);
+        metrics.record(1, 5);
+        metrics.endGeneration(10, 100);
+        metrics.endGeneration(20, -1);
+        Checks.check(Arrays.equals(new long[] {4, 1}, metrics.getPhaseCounts()), "counts " + Arrays.toString(metrics.getPhaseCounts()));
+        Checks.check(Arrays.equals(new long[] {103_000, 5}, metrics.getPhaseTotalNanos()), "totals");
+        Checks.check(Arrays.equals(new long[] {100_000, 5}, metrics.getPhaseMaxNanos()), "maxima");
+        // Quantiles are the upper bound of their log2 bucket: 1000 is in 512..1023, 100,000 in 65,536..131,071
+        Checks.check(Arrays.equals(new long[] {1023, 7}, metrics.getPhaseMedianNanos()), "medians " + Arrays.toString(metrics.getPhaseMedianNanos()));
+        Checks.check(Arrays.equals(new long[] {131_071, 7}, metrics.getPhaseP99Nanos()), "99th percentiles " + Arrays.toString(metrics.getPhaseP99Nanos()));
+        Checks.equal(2, metrics.getGenerations(), "generations");
+        Checks.equal(30, metrics.getEvaluations(), "evaluations");
+        Checks.close(30e9 / 103_005, metrics.getEvaluationsPerSecond(), "evaluations per second");
+        // Unknown allocations are left out of the sum, not of the generation count
+        Checks.equal(SolverMetrics.allocatedBytes() < 0 ? -1 : 50, metrics.getBytesAllocatedPerGeneration(), "bytes per generation");
+
+        ObjectName name = new ObjectName("tsp:type=SolverMetrics,name=test");
+        Checks.check(ManagementFactory.getPlatformMBeanServer().isRegistered(name), "metrics not registered with JMX");
+        Checks.equal(2, (Long) ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Generations"), "generations over JMX");
+
+        Path directory = Files.createTempDirectory("solver-metrics-test");
+        Path csv = directory.resolve("metrics.csv");
+        Path json = directory.resolve("metrics.jsonl");
+        try {
+            SolverMetrics.dump(csv);
+            SolverMetrics.dump(csv);
+            List<String> rows = Files.readAllLines(csv, StandardCharsets.UTF_8);
+            Checks.check(rows.get(0).startsWith("timestamp,solver,phase,"), "CSV header " + rows.get(0));
+            Checks.equal(1, rows.stream().filter(row -> row.startsWith("timestamp")).count(), "CSV headers after two dumps");
+            Checks.equal(2, rows.stream().filter(row -> row.contains(",test,first,4,103000,100000,1023,131071,2,30,")).count(),
+                    "CSV rows of the first phase");
+            SolverMetrics.dump(json);
+            List<String> lines = Files.readAllLines(json, StandardCharsets.UTF_8);
+            Checks.check(lines.stream().anyMatch(line -> line.contains("\"solver\":\"test\"")
+                    && line.contains("\"second\":{\"count\":1,\"totalNanos\":5,")), "JSON line " + lines);
+        } finally {
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(json);
+            Files.deleteIfExists(directory);
+        }
+
+        metrics.reset();
+        Checks.check(Arrays.equals(new long[2], metrics.getPhaseCounts()) && Arrays.equals(new long[2], metrics.getPhaseMaxNanos())
+                && metrics.getGenerations() == 0 && metrics.getEvaluations() == 0, "counters after reset");
+        Checks.check(Arrays.equals(new long[2], metrics.getPhaseMedianNanos()), "medians after reset");
+
+        // Solving threads share the metrics of their kind of solver
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    metrics.record(i % 2, i);
+                    metrics.endGeneration(1, 1);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Checks.check(Arrays.equals(new long[] {20_000, 20_000}, metrics.getPhaseCounts()), "counts from four threads");
+        Checks.equal(40_000, metrics.getGenerations(), "generations from four threads");
+        Checks.equal(9999, metrics.getPhaseMaxNanos()[1], "maximum from four threads");
+
+        int[][] distances = new DataGenerator().generateDistances(20, new SplittableRandom(29));
+        TSPGeneticAlgorithm tspGeneticAlgorithm = new TSPGeneticAlgorithm(SolverConfig.defaults(), distances);
+        tspGeneticAlgorithm.setRandom(new SplittableRandom(29));
+        TSPSolver solver = new TSPSolver(tspGeneticAlgorithm);
+        solver.setVerbose(false);
+        solver.solve(TerminationCriteria.iterations(7), 20, distances.length);
+        solver.solveSteadyState(TerminationCriteria.iterations(3), 20, distances.length);
+        SolverMetrics genetic = SolverMetrics.forSolver("GA");
+        Checks.equal(10, genetic.getGenerations(), "GA generations");
+        Checks.check(Arrays.asList(genetic.getPhaseNames()).equals(Arrays.asList("selection", "crossover", "mutation", "evaluation", "replacement")),
+                "GA phases " + Arrays.toString(genetic.getPhaseNames()));
+        Checks.check(Arrays.stream(genetic.getPhaseCounts()).allMatch(count -> count >= 10), "GA phase counts " + Arrays.toString(genetic.getPhaseCounts()));
+        Checks.check(genetic.getEvaluations() >= 10 * 20, "GA evaluations " + genetic.getEvaluations());
+
+        AntAlgo antAlgo = new AntAlgo();
+        antAlgo.setVerbose(false);
+        antAlgo.setRandom(new SplittableRandom(29));
+        antAlgo.setGraph(TSPInstance.of("test", distances).getGraph());
+        antAlgo.solve(TerminationCriteria.iterations(5));
+        SolverMetrics ants = SolverMetrics.forSolver("ACO");
+        Checks.equal(5, ants.getGenerations(), "ACO generations");
+        Checks.check(Arrays.equals(new long[] {5, 5, 5}, ants.getPhaseCounts()), "ACO phase counts " + Arrays.toString(ants.getPhaseCounts()));
+        Checks.equal(5L * antAlgo.m, ants.getEvaluations(), "ACO evaluations");
+        System.out.println("SolverMetricsTest OK");
+    }
+}
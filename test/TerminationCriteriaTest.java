@@ -0,0 +1,118 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks every stop condition of TerminationCriteria on its own, then that the solvers honour a time budget, a target
+ * and stagnation, and that bestSoFar can be polled from another thread while a solve runs.
+ */
+public class TerminationCriteriaTest {
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    public static void main(String[] args) throws Exception {
+        TerminationCriteria none = TerminationCriteria.iterations(0);
+        Checks.check(none.stopReason(Integer.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, 1, 0.5) == null,
+                "disabled criteria stopped: " + none.stopReason(Integer.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, 1, 0.5));
+
+        TerminationCriteria iterations = TerminationCriteria.iterations(10);
+        Checks.check(iterations.stopReason(9, Long.MAX_VALUE, 0, 1) == null, "stopped before the iteration limit");
+        checkReason("iteration limit", iterations.stopReason(10, 0, 0, 1));
+
+        TerminationCriteria time = TerminationCriteria.timeLimit(5);
+        Checks.check(time.stopReason(1000, 5 * MILLIS - 1, 1000, 1) == null, "stopped before the time limit");
+        checkReason("time limit", time.stopReason(0, 5 * MILLIS, 0, 1));
+
+        TerminationCriteria stagnation = none.withStagnationLimit(3);
+        Checks.check(stagnation.stopReason(1000, Long.MAX_VALUE, 2, 1) == null, "stopped before the stagnation limit");
+        checkReason("no improvement", stagnation.stopReason(0, 0, 3, 1));
+
+        TerminationCriteria target = none.withTargetLength(100);
+        Checks.check(target.stopReason(1000, Long.MAX_VALUE, 1000, 100.5) == null, "stopped above the target");
+        checkReason("target length", target.stopReason(0, 0, 0, 100));
+        checkReason("target length", target.stopReason(0, 0, 0, 99));
+
+        // The gap only counts once there is a bound; a tour as short as the bound is optimal without any gap limit
+        TerminationCriteria gap = none.withMaxGap(0.1);
+        Checks.check(gap.stopReason(0, 0, 0, 105) == null, "stopped on a gap without a lower bound");
+        Checks.check(gap.stopReason(0, 0, 0, 111, 100) == null, "stopped outside the gap");
+        checkReason("gap to lower bound", gap.stopReason(0, 0, 0, 110, 100));
+        checkReason("optimal", none.stopReason(0, 0, 0, 100, 100));
+
+        // When several conditions hold, the one checked first is reported
+        TerminationCriteria all = TerminationCriteria.iterations(1).withTimeLimit(1).withStagnationLimit(1).withTargetLength(100);
+        checkReason("target length", all.stopReason(1, MILLIS, 1, 100));
+        checkReason("iteration limit", all.stopReason(1, MILLIS, 1, 101));
+
+        int[][] distances = new DataGenerator().generateDistances(40, new SplittableRandom(26));
+
+        // A time budget ends both solvers close to it, whatever the iteration count
+        TSPSolver timed = geneticSolver(distances);
+        long start = System.nanoTime();
+        timed.solve(TerminationCriteria.timeLimit(300), 30, distances.length);
+        checkDuration("GA", start, 300);
+        AntAlgo antAlgo = new AntAlgo();
+        antAlgo.setVerbose(false);
+        antAlgo.setRandom(new SplittableRandom(26));
+        antAlgo.setGraph(TSPInstance.of("test", distances).getGraph());
+        start = System.nanoTime();
+        antAlgo.solve(TerminationCriteria.timeLimit(300));
+        checkDuration("ACO", start, 300);
+
+        // A target every tour meets stops the steady-state engine before its first iteration
+        TSPSolver targeted = geneticSolver(distances);
+        targeted.solveSteadyState(TerminationCriteria.iterations(1_000_000).withTargetLength(Double.MAX_VALUE), 30, distances.length);
+        Checks.equal(0, targeted.bestSoFar().getIteration(), "iteration of the best tour with a target met at once");
+
+        // Stagnation alone ends a solve long before the iteration limit that only guards this check
+        TSPSolver stagnating = geneticSolver(distances);
+        start = System.nanoTime();
+        stagnating.solve(TerminationCriteria.iterations(1_000_000).withStagnationLimit(5), 30, distances.length);
+        Checks.check(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(20), "stagnation did not stop the GA");
+
+        // Another thread sees the best tour improve while the solve runs, ending on the returned tour
+        TSPGeneticAlgorithm tspGeneticAlgorithm = new TSPGeneticAlgorithm(SolverConfig.defaults(), distances);
+        tspGeneticAlgorithm.setRandom(new SplittableRandom(27));
+        TSPSolver polled = new TSPSolver(tspGeneticAlgorithm);
+        polled.setVerbose(false);
+        List<TourSnapshot> seen = new ArrayList<>();
+        Thread poller = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                TourSnapshot best = polled.bestSoFar();
+                if (best != null && (seen.isEmpty() || seen.get(seen.size() - 1) != best)) {
+                    seen.add(best);
+                }
+                Thread.onSpinWait();
+            }
+        });
+        poller.start();
+        List<Integer> tour = polled.solve(TerminationCriteria.timeLimit(400), 30, distances.length);
+        poller.interrupt();
+        poller.join();
+        Checks.check(!seen.isEmpty(), "no best tour seen during the solve");
+        for (int i = 1; i < seen.size(); i++) {
+            Checks.check(seen.get(i).getLength() <= seen.get(i - 1).getLength(), "best tour got longer: " + seen.get(i));
+        }
+        Checks.close(tspGeneticAlgorithm.tourLength(tour), polled.bestSoFar().getLength(), "length of the returned tour");
+        System.out.println("TerminationCriteriaTest OK");
+    }
+
+    private static void checkReason(String expected, String reason) {
+        Checks.check(reason != null && reason.contains(expected), "expected a stop on " + expected + ", got " + reason);
+    }
+
+    // Ending well after the budget means the time was only checked rarely or not at all
+    private static void checkDuration(String solver, long start, long budgetMillis) {
+        long millis = (System.nanoTime() - start) / MILLIS;
+        Checks.check(millis >= budgetMillis && millis < budgetMillis + 1000,
+                solver + " ran " + millis + " ms on a " + budgetMillis + " ms budget");
+    }
+
+    private static TSPSolver geneticSolver(int[][] distances) {
+        TSPGeneticAlgorithm tspGeneticAlgorithm = new TSPGeneticAlgorithm(SolverConfig.defaults(), distances);
+        tspGeneticAlgorithm.setRandom(new SplittableRandom(26));
+        TSPSolver solver = new TSPSolver(tspGeneticAlgorithm);
+        solver.setVerbose(false);
+        return solver;
+    }
+}
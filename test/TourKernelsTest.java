@@ -0,0 +1,93 @@
+import java.util.SplittableRandom;
+
+/**
+ * Checks the kernels of {@link TourKernels#get()} against the scalar kernels and a plain recomputation, for every size
+ * from 1 to two vectors of 16 ints (512 bits) and one more, so that every species gets full vectors and a tail.
+ * Without the vector kernels this only checks the scalar ones; to compare the SIMD versions run
+ * <pre>
+ * javac --add-modules jdk.incubator.vector -cp out -d out vector/VectorTourKernels.java
+ * java --add-modules jdk.incubator.vector -Dtsp.vector=true -cp out TourKernelsTest
+ * </pre>
+ */
+public class TourKernelsTest {
+    private static final int MAX_LANES = 16;
+
+    public static void main(String[] args) {
+        TourKernels scalar = new TourKernels();
+        TourKernels kernels = TourKernels.get();
+        SplittableRandom random = new SplittableRandom(38);
+        // Growing, then shrinking sizes, so reused scratch arrays are once longer than the tour
+        for (int pass = 0; pass < 2; pass++) {
+            for (int k = 1; k <= 2 * MAX_LANES + 1; k++) {
+                int n = pass == 0 ? k : 2 * MAX_LANES + 2 - k;
+                check(scalar, kernels, n, random);
+            }
+        }
+        check(scalar, kernels, 1000, random);
+        System.out.println("TourKernelsTest OK" + (kernels.isVectorized() ? " (vector kernels)"
+                : " (scalar kernels only, the vector kernels are not enabled)"));
+    }
+
+    private static void check(TourKernels scalar, TourKernels kernels, int n, SplittableRandom random) {
+        int[] distances = new int[n * n];
+        double[] weights = new double[n * n];
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = random.nextInt(1, 1 << 20);
+            weights[i] = random.nextDouble(0, 100);
+        }
+        int[][] tours = new int[5][];
+        for (int t = 0; t < tours.length; t++) {
+            tours[t] = permutation(n, random);
+            int[] tour = tours[t];
+            int length = 0;
+            double weight = 0;
+            for (int i = 0; i < n; i++) {
+                length += distances[tour[i] * n + tour[(i + 1) % n]];
+                weight += weights[tour[i] * n + tour[(i + 1) % n]];
+            }
+            Checks.equal(length, scalar.tourLength(distances, n, tour), "scalar int tour length, n = " + n);
+            Checks.equal(length, kernels.tourLength(distances, n, tour), "int tour length, n = " + n);
+            // The vector kernels add in another order, so only the rounding may differ
+            Checks.close(weight, scalar.tourLength(weights, n, tour), "scalar double tour length, n = " + n);
+            Checks.close(weight, kernels.tourLength(weights, n, tour), "double tour length, n = " + n);
+        }
+        int[] expected = new int[tours.length];
+        int[] lengths = new int[tours.length];
+        scalar.tourLengths(distances, n, tours, expected);
+        kernels.tourLengths(distances, n, tours, lengths);
+        for (int t = 0; t < tours.length; t++) {
+            Checks.equal(expected[t], lengths[t], "length of tour " + t + " of the population, n = " + n);
+        }
+
+        double[] a = new double[n];
+        double[] b = new double[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = random.nextDouble(-1e3, 1e3);
+            b[i] = random.nextDouble(-1e3, 1e3);
+        }
+        double factor = random.nextDouble(0, 1);
+        double[] scaled = a.clone();
+        kernels.scale(scaled, factor);
+        double[] product = new double[n];
+        kernels.multiply(a, b, product);
+        double[] scalarScaled = a.clone();
+        scalar.scale(scalarScaled, factor);
+        double[] scalarProduct = new double[n];
+        scalar.multiply(a, b, scalarProduct);
+        for (int i = 0; i < n; i++) {
+            // Element-wise products round the same in every lane, so these must be exact
+            Checks.check(scaled[i] == a[i] * factor && scalarScaled[i] == scaled[i], "scaled value " + i + ", n = " + n);
+            Checks.check(product[i] == a[i] * b[i] && scalarProduct[i] == product[i], "product " + i + ", n = " + n);
+        }
+    }
+
+    private static int[] permutation(int n, SplittableRandom random) {
+        int[] tour = new int[n];
+        for (int i = 0; i < n; i++) {
+            int j = random.nextInt(i + 1);
+            tour[i] = tour[j];
+            tour[j] = i;
+        }
+        return tour;
+    }
+}
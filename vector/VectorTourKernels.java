@@ -0,0 +1,107 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * VectorTourKernels are the SIMD versions of {@link TourKernels}, using the incubating Vector API.
+ * Tour lengths compute the matrix index of each edge (from * n + to) a vector at a time, then sum the distances
+ * with gather loads. Only loaded through {@link TourKernels#get()}; it is kept out of the main sources because it needs
+ * {@code --add-modules jdk.incubator.vector} to compile and run (see TourKernels).
+ */
+final class VectorTourKernels extends TourKernels {
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+    /*Edge indices of the tour being evaluated, reused per thread*/ 
+    private final ThreadLocal<int[]> scratch = ThreadLocal.withInitial(() -> new int[0]);
+
+    VectorTourKernels() {
+        if (INTS.length() < 4) {
+            throw new UnsupportedOperationException("Vectors of " + INTS.length() + " ints are not worth it");
+        }
+    }
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    public int tourLength(int[] distances, int n, int[] tour) {
+        int[] index = edgeIndices(n, tour);
+        int bound = INTS.loopBound(tour.length);
+        IntVector sum = IntVector.zero(INTS);
+        int i = 0;
+        for (; i < bound; i += INTS.length()) {
+            sum = sum.add(IntVector.fromArray(INTS, distances, 0, index, i));
+        }
+        int length = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < tour.length; i++) {
+            length += distances[index[i]];
+        }
+        return length;
+    }
+
+    @Override
+    public double tourLength(double[] distances, int n, int[] tour) {
+        int[] index = edgeIndices(n, tour);
+        int bound = DOUBLES.loopBound(tour.length);
+        DoubleVector sum = DoubleVector.zero(DOUBLES);
+        int i = 0;
+        for (; i < bound; i += DOUBLES.length()) {
+            sum = sum.add(DoubleVector.fromArray(DOUBLES, distances, 0, index, i));
+        }
+        double length = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < tour.length; i++) {
+            length += distances[index[i]];
+        }
+        return length;
+    }
+
+    @Override
+    public void scale(double[] values, double factor) {
+        int bound = DOUBLES.loopBound(values.length);
+        int i = 0;
+        for (; i < bound; i += DOUBLES.length()) {
+            DoubleVector.fromArray(DOUBLES, values, i).mul(factor).intoArray(values, i);
+        }
+        for (; i < values.length; i++) {
+            values[i] *= factor;
+        }
+    }
+
+    @Override
+    public void multiply(double[] a, double[] b, double[] out) {
+        int bound = DOUBLES.loopBound(out.length);
+        int i = 0;
+        for (; i < bound; i += DOUBLES.length()) {
+            DoubleVector.fromArray(DOUBLES, a, i).mul(DoubleVector.fromArray(DOUBLES, b, i)).intoArray(out, i);
+        }
+        for (; i < out.length; i++) {
+            out[i] = a[i] * b[i];
+        }
+    }
+
+    /*Matrix index of every edge of the tour, the closing edge last*/ 
+    private int[] edgeIndices(int n, int[] tour) {
+        int[] index = scratch.get();
+        if (index.length < tour.length) {
+            index = new int[tour.length];
+            scratch.set(index);
+        }
+        int last = tour.length - 1;
+        int bound = INTS.loopBound(last);
+        int i = 0;
+        for (; i < bound; i += INTS.length()) {
+            IntVector from = IntVector.fromArray(INTS, tour, i);
+            IntVector to = IntVector.fromArray(INTS, tour, i + 1);
+            from.mul(n).add(to).intoArray(index, i);
+        }
+        for (; i < last; i++) {
+            index[i] = tour[i] * n + tour[i + 1];
+        }
+        index[last] = tour[last] * n + tour[0];
+        return index;
+    }
+}